@@ -10,6 +10,12 @@ public class ConstantGenerator {
 
     static Map<String, Map<String, PropItem>> allConstants = new HashMap<>();
     static Map<String, String> properties = new HashMap<>();
+    static Properties configProperties = new Properties();
+    // The resolved robot values when baking literals, by full key; null for runtime lookups
+    static Map<String, String> bakeSource = null;
+    static List<String> bakeFiles = new ArrayList<>();
+    static List<PropItem> bakedItems = new ArrayList<>();
+    static List<String> bakedValues = new ArrayList<>();
     public static StringBuilder program = new StringBuilder();
     public static final String PROGRAM_HEADER = String.format("""
             /* This file was autogenerated at %s - do not edit it - any edits will be overwritten! */ 
@@ -45,7 +51,7 @@ public class ConstantGenerator {
                 sortedKeys.sort(null);
 
                 for (String key : sortedKeys) {
-                    program.append(indent(allConstants.get(prefix).get(key).toString(), tabs));
+                    program.append(indent(declaration(allConstants.get(prefix).get(key)), tabs));
                 }
                 tabs -= 1;
                 program.append(indent("}", tabs));
@@ -53,18 +59,123 @@ public class ConstantGenerator {
                 List<String> sortedKeys = new ArrayList<>(allConstants.get(prefix).keySet());
                 sortedKeys.sort(null);
                 for (String k : sortedKeys) {
-                    program.append(indent(allConstants.get(prefix).get(k).toString(), tabs));
+                    program.append(indent(declaration(allConstants.get(prefix).get(k)), tabs));
                 }
             }
         }
+        bakedWriter(tabs);
         tabs -= 1;
         program.append(indent("}\n", tabs));
     }
 
+    // A literal when baking and the value can be baked, otherwise a StormProp lookup at class init
+    private static String declaration(PropItem item) {
+        if (bakeSource == null) {
+            return item.toString();
+        }
+        try {
+            String raw = bakeSource.get(item.getFullKey());
+            String bakedValue = item.bakeValue(raw == null ? null : removeCast(raw));
+            bakedItems.add(item);
+            bakedValues.add(bakedValue);
+            return item.toLiteralString(bakedValue);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Not baking " + item.getFullKey() + ", it will be looked up at runtime: "
+                    + e.getMessage());
+            return item.toString();
+        }
+    }
+
+    // Same as StormProp.removeCast
+    private static String removeCast(String value) {
+        int endIndex = value.indexOf(")");
+        if (endIndex == -1) {
+            throw new IllegalArgumentException("Malformed property value, missing type cast: " + value);
+        }
+        return value.substring(endIndex + 1).trim();
+    }
+
+    // Constants.Baked, so Robot can check at startup that the deployed files still match the literals
+    private static void bakedWriter(int tabs) {
+        program.append("\n");
+        program.append(indent("public static final class Baked {", tabs));
+        tabs += 1;
+        if (bakeSource == null) {
+            program.append(indent("public static final String SOURCE = null;", tabs));
+            program.append("\n");
+            program.append(indent("public static boolean verify() {", tabs));
+            program.append(indent("return true;", tabs + 1));
+            program.append(indent("}", tabs));
+        } else {
+            program.append(indent("public static final String SOURCE = "
+                    + PropItem.javaString(String.join(", ", bakeFiles)) + ";", tabs));
+            program.append(indent("private static final String[] KEYS = {", tabs));
+            for (PropItem item : bakedItems) {
+                program.append(indent(PropItem.javaString(item.getFullKey()) + ",", tabs + 1));
+            }
+            program.append(indent("};", tabs));
+            program.append(indent("private static final String[] TYPES = {", tabs));
+            for (PropItem item : bakedItems) {
+                program.append(indent(PropItem.javaString(item.getPropertyType().getPropertyTag()) + ",", tabs + 1));
+            }
+            program.append(indent("};", tabs));
+            program.append(indent("private static final String[] VALUES = {", tabs));
+            for (String value : bakedValues) {
+                program.append(indent((value == null ? "null" : PropItem.javaString(value)) + ",", tabs + 1));
+            }
+            program.append(indent("};", tabs));
+            program.append("\n");
+            program.append(indent("public static boolean verify() {", tabs));
+            program.append(indent("return StormProp.verifyBaked(SOURCE, KEYS, TYPES, VALUES);", tabs + 1));
+            program.append(indent("}", tabs));
+        }
+        tabs -= 1;
+        program.append(indent("}", tabs));
+    }
+
+    /**
+     * Resolve the values to bake the way StormProp does on the robot: config.properties, then each
+     * override file in order, later files winning.
+     *
+     * @param files comma separated override file names. There's no default: the literals go into the
+     *              robot code, so the files have to be the ones that robot will run with
+     */
+    public static void initBake(String path, String files) throws IOException {
+        List<String> names = new ArrayList<>();
+        for (String name : files.split(",")) {
+            if (!name.isBlank()) {
+                names.add(name.trim());
+            }
+        }
+        if (names.isEmpty()) {
+            throw new IllegalStateException("baking needs the robot's property files, e.g. "
+                    + "-PbakeConstants=saturnreach.properties");
+        }
+
+        bakeSource = new HashMap<>();
+        for (String key : configProperties.stringPropertyNames()) {
+            bakeSource.put(key, configProperties.getProperty(key));
+        }
+        bakeFiles.add("config.properties");
+        for (String name : names) {
+            // Unlike the robot, a missing file fails the build: the literals would silently be wrong
+            try (FileReader reader = new FileReader(path + "/" + name)) {
+                Properties p = new Properties();
+                p.load(reader);
+                for (String key : p.stringPropertyNames()) {
+                    bakeSource.put(key, p.getProperty(key));
+                }
+            }
+            bakeFiles.add(name);
+        }
+        System.out.println("Baking constants from " + bakeFiles);
+    }
+
     public static void init(String path) throws IOException {
         try (FileReader reader = new FileReader(path + "/config.properties")) {
             Properties p = new Properties();
             p.load(reader);
+            configProperties = p;
             List<String> propFiles = new ArrayList<>();
 
             Enumeration<Object> keys = p.keys();
@@ -144,8 +255,8 @@ public class ConstantGenerator {
     }
 
     public static void main(String[] args) {
-        if (args.length != 2) {
-            System.err.println("usage: program INPUTFILEDIR OUTPUTFILENAME");
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("usage: program INPUTFILEDIR OUTPUTFILENAME [BAKEFILES]");
             exit(1);
         }
 
@@ -155,6 +266,12 @@ public class ConstantGenerator {
 
         try {
             init(inputFileDir);
+            if (allConstants.containsKey("baked")) {
+                throw new IllegalStateException("the prefix baked is reserved for Constants.Baked");
+            }
+            if (args.length == 3) {
+                initBake(inputFileDir, args[2]);
+            }
             programWriter();
 
             // Generate Constants.java
@@ -166,7 +283,7 @@ public class ConstantGenerator {
             // Generate Options class
             OptionsGenerator.generateOptions(allConstants, optionsDir);
 
-        } catch (IOException e) {
+        } catch (IOException | IllegalStateException e) {
             System.err.println("Error during code generation: " + e.getMessage());
             exit(1);
         }
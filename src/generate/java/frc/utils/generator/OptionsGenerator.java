@@ -42,8 +42,8 @@ public class OptionsGenerator {
 
         // Constructor
         sb.append(String.format("        public %s() {\n", className));
-        sb.append(String.format("            super(\"%s Options\");\n",
-                prefix.substring(0, 1).toUpperCase() + prefix.substring(1)));
+        sb.append(String.format("            super(\"%s Options\", \"%s\");\n",
+                prefix.substring(0, 1).toUpperCase() + prefix.substring(1), prefix));
 
         // Initialize options
         for (PropItem prop : props.values()) {
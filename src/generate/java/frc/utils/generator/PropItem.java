@@ -3,18 +3,21 @@ package frc.utils.generator;
 public class PropItem {
 
     public enum PropertyType {
-        STRING("string", "String", "getString"),
-        INTEGER("int", "int", "getInt"),
-        NUMBER("number", "double", "getNumber"),
-        BOOLEAN("boolean", "Boolean", "getBoolean");
+        STRING("string", "String", "String", "getString"),
+        INTEGER("int", "int", "int", "getInt"),
+        NUMBER("number", "double", "double", "getNumber"),
+        BOOLEAN("boolean", "Boolean", "boolean", "getBoolean");
 
         private final String propertyTag;
         private final String javaType;
+        // Type of the Constants field; primitive so a literal value is a compile time constant
+        private final String constantType;
         private final String methodName;
 
-        PropertyType(String propertyTag, String javaType, String methodName) {
+        PropertyType(String propertyTag, String javaType, String constantType, String methodName) {
             this.propertyTag = propertyTag;
             this.javaType = javaType;
+            this.constantType = constantType;
             this.methodName = methodName;
         }
 
@@ -28,6 +31,10 @@ public class PropItem {
             throw new IllegalArgumentException("Unknown property type: " + tag);
         }
 
+        public String getPropertyTag() {
+            return propertyTag;
+        }
+
         public String getJavaType() {
             return javaType;
         }
@@ -76,13 +83,76 @@ public class PropItem {
         return "\"" + s + "\"";
     }
 
+    /** The key as StormProp looks it up: prefix.key, or just key for general. */
+    public String getFullKey() {
+        return prefix.equals("general") ? key : prefix + "." + key;
+    }
+
+    /**
+     * The value a Constants field would get from a property value, the way StormProp reads it, as a
+     * string: numbers and booleans normalized, so "0.50" and "0.5" bake the same.
+     *
+     * @param value the property value with its type cast removed, or null when the key isn't set
+     * @return the value, or null if StormProp would use the default
+     * @throws IllegalArgumentException if the value can't be baked, so it must be looked up at runtime
+     */
+    public String bakeValue(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return switch (propertyType) {
+            case STRING -> value;
+            case INTEGER -> Integer.toString(Integer.parseInt(value));
+            case NUMBER -> {
+                double number = Double.parseDouble(value);
+                if (!Double.isFinite(number)) {
+                    throw new IllegalArgumentException("not a finite number: " + value);
+                }
+                yield Double.toString(number);
+            }
+            case BOOLEAN -> Boolean.toString(value.equalsIgnoreCase("true"));
+        };
+    }
+
+    /**
+     * A declaration with a literal value, which javac treats as a compile time constant.
+     *
+     * @param bakedValue from {@link #bakeValue(String)}; null for the default
+     */
+    public String toLiteralString(String bakedValue) {
+        String value = bakedValue == null ? defaultVal : bakedValue;
+        String literal = propertyType == PropertyType.STRING ? javaString(value) : value;
+        return String.format("public static final %s %s = %s;", propertyType.constantType, key, literal);
+    }
+
+    static String javaString(String s) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < ' ' || c > '~') {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
     @Override
     public String toString() {
         String methodCall = "StormProp." + propertyType.methodName;
         String defaultValue = propertyType == PropertyType.STRING ? quote(defaultVal) : defaultVal;
 
         return String.format("public static final %s %s = %s(%s, %s, %s);",
-                propertyType.javaType,
+                propertyType.constantType,
                 key,
                 methodCall,
                 quote(prefix),
@@ -0,0 +1,84 @@
+package frc.robot.subsystems.drive;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.subsystems.drive.config.ModuleLocations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the kinematics BasicSwerve runs every loop. fieldRelativeDrive is the whole chain from
+ * DrivetrainBase.drive() to the module states BasicSwerve.periodic() sends, calling the robot's own
+ * code. toSwerveModuleStates is WPILib's version of ModuleStateBuffer, for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwerveKinematicsBenchmark {
+    // A drive whose heading turns a little every call, so the field relative rotation changes
+    private static class BenchmarkDrivetrain extends DrivetrainBase {
+        double yawRadians = 0;
+
+        @Override
+        protected double getFieldRelativeYawRadians() {
+            return yawRadians;
+        }
+    }
+
+    private SwerveDriveKinematics kinematics;
+    private ModuleStateBuffer moduleStates;
+    private BenchmarkDrivetrain drivetrain;
+    private ChassisSpeeds speeds;
+    private SwerveModuleState[] states;
+
+    @Setup
+    public void setup() {
+        // DrivetrainBase is a subsystem, which registers with the scheduler
+        HAL.initialize(500, 0);
+        Translation2d[] modules = ModuleLocations.saturnX();
+        kinematics = new SwerveDriveKinematics(modules);
+        moduleStates = new ModuleStateBuffer(modules);
+        drivetrain = new BenchmarkDrivetrain();
+        drivetrain.setMaxVelocities(4.5, 9.0);
+        speeds = new ChassisSpeeds(1.5, -0.5, 0.75);
+        states = kinematics.toSwerveModuleStates(speeds);
+    }
+
+    @Benchmark
+    public SwerveModuleState[] toSwerveModuleStates() {
+        return kinematics.toSwerveModuleStates(speeds);
+    }
+
+    @Benchmark
+    public SwerveModuleState[] moduleStateBuffer() {
+        return moduleStates.toSwerveModuleStates(speeds);
+    }
+
+    @Benchmark
+    public ChassisSpeeds toChassisSpeeds() {
+        return kinematics.toChassisSpeeds(states);
+    }
+
+    @Benchmark
+    public SwerveModuleState[] fieldRelativeDrive() {
+        drivetrain.yawRadians += 0.002;
+        drivetrain.drive(speeds, true, 0.25);
+        return moduleStates.toSwerveModuleStates(drivetrain.m_chassisSpeeds);
+    }
+}
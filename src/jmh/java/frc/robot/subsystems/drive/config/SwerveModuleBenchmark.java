@@ -0,0 +1,42 @@
+package frc.robot.subsystems.drive.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the per-module math SwerveModule does every loop. The input angle walks through
+ * several turns in both directions, like an unwound steer encoder does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwerveModuleBenchmark {
+    private double angle;
+
+    @Setup
+    public void setup() {
+        angle = -1080.0;
+    }
+
+    @Benchmark
+    public double normalizeDegrees() {
+        angle += 7.3;
+        if (angle > 1080.0) {
+            angle = -1080.0;
+        }
+        return SwerveModule.normalizeDegrees(angle);
+    }
+}
@@ -0,0 +1,67 @@
+package frc.utils.swerve;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the GeomUtil / EqualsUtil helpers the setpoint generator leans on, e.g. the
+ * "is this a complete stop" test that builds a Twist2d from ChassisSpeeds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeomUtilBenchmark {
+    private ChassisSpeeds speeds;
+    private Twist2d twist;
+    private Twist2d zeroTwist;
+    private Pose2d pose;
+    private double a;
+    private double b;
+
+    @Setup
+    public void setup() {
+        speeds = new ChassisSpeeds(1.5, -0.5, 0.25);
+        twist = new Twist2d(0.1, 0.2, 0.3);
+        zeroTwist = new Twist2d();
+        pose = new Pose2d(3.0, 4.0, Rotation2d.fromDegrees(30.0));
+        a = 1.0;
+        b = 1.0 + 1e-12;
+    }
+
+    @Benchmark
+    public boolean stopTest() {
+        return EqualsUtil.GeomExtensions.epsilonEquals(GeomUtil.toTwist2d(speeds), zeroTwist);
+    }
+
+    @Benchmark
+    public boolean epsilonEquals() {
+        return EqualsUtil.epsilonEquals(a, b);
+    }
+
+    @Benchmark
+    public Twist2d multiply() {
+        return GeomUtil.multiply(twist, 0.5);
+    }
+
+    @Benchmark
+    public Pose2d inverse() {
+        return GeomUtil.inverse(pose);
+    }
+}
@@ -0,0 +1,91 @@
+package frc.utils.swerve;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import frc.robot.subsystems.drive.config.ModuleLocations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks one loop of the setpoint generator. "steady" keeps asking for the same speeds, so
+ * the generator has already converged; "driving" changes the requested speeds every 25 loops like
+ * a driver does, so the steering and drive limits are active most of the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwerveSetpointGeneratorBenchmark {
+    private static final double LOOP_PERIOD = 0.02;
+    private static final int COMMANDS = 64;
+    private static final int LOOPS_PER_COMMAND = 25;
+
+    @Param({"steady", "driving"})
+    public String scenario;
+
+    @Param({"true", "false"})
+    public boolean analyticDriveSolver;
+
+    private SwerveSetpointGenerator generator;
+    private ModuleLimits limits;
+    private ChassisSpeeds[] commands;
+    private SwerveSetpoint allocatingSetpoint;
+    private SwerveSetpoint reusedSetpoint;
+    private int loop;
+
+    @Setup
+    public void setup() {
+        Translation2d[] moduleLocations = ModuleLocations.saturnX();
+        generator = SwerveSetpointGenerator.builder()
+                .kinematics(new SwerveDriveKinematics(moduleLocations))
+                .moduleLocations(moduleLocations)
+                .build();
+        generator.setUseAnalyticDriveSolver(analyticDriveSolver);
+        limits = new ModuleLimits(4.5, 8.0, 12.0);
+
+        Random random = new Random(5422);
+        commands = new ChassisSpeeds[COMMANDS];
+        for (int i = 0; i < COMMANDS; i++) {
+            commands[i] = scenario.equals("steady")
+                    ? new ChassisSpeeds(1.5, 0.5, 0.7)
+                    : new ChassisSpeeds(random.nextGaussian() * 2.0, random.nextGaussian() * 2.0,
+                            random.nextGaussian() * 3.0);
+        }
+
+        allocatingSetpoint = SwerveSetpoint.zero(moduleLocations.length);
+        reusedSetpoint = SwerveSetpoint.zero(moduleLocations.length);
+        loop = 0;
+    }
+
+    private ChassisSpeeds nextCommand() {
+        loop++;
+        return commands[(loop / LOOPS_PER_COMMAND) % COMMANDS];
+    }
+
+    @Benchmark
+    public SwerveSetpoint generateSetpoint() {
+        allocatingSetpoint = generator.generateSetpoint(limits, allocatingSetpoint, nextCommand(), LOOP_PERIOD);
+        return allocatingSetpoint;
+    }
+
+    @Benchmark
+    public SwerveSetpoint generateSetpointAllocationFree() {
+        generator.generateSetpoint(limits, reusedSetpoint, nextCommand(), LOOP_PERIOD, reusedSetpoint);
+        return reusedSetpoint;
+    }
+}
@@ -8,6 +8,14 @@ import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.PowerDistribution;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import frc.robot.RobotState.StatePeriod;
+import frc.robot.sim.ScenarioRunner;
+import frc.utils.Alert;
+import frc.utils.Alert.AlertType;
+import frc.utils.AllocationMonitor;
+import frc.utils.Console;
+import frc.utils.LatencyHistogram;
+import frc.utils.LoopProfiler;
+import frc.utils.configfile.StormProp;
 import org.littletonrobotics.junction.LogFileUtil;
 import org.littletonrobotics.junction.LoggedRobot;
 import org.littletonrobotics.junction.Logger;
@@ -20,10 +28,34 @@ public class Robot extends LoggedRobot {
 
     private RobotContainer robotContainer;
     private RobotState state;
+    private ScenarioRunner scenario;
     private int iteration = 0;
+    private final LoopProfiler profiler = LoopProfiler.getInstance();
+    private final LoopProfiler.Section containerTiming = profiler.getSection("RobotContainer");
+    // Once a second at 50 Hz
+    private static final int LOOP_STATS_EVERY = 50;
+    private final LatencyHistogram loopDuration = new LatencyHistogram("LoopStats/durationMs");
+    private final LatencyHistogram loopPeriod = new LatencyHistogram("LoopStats/periodMs");
+    private long lastLoopStart = 0;
+    private int loopOverruns = 0;
+    private StatePeriod loopStatsPeriod;
+    private final AllocationMonitor allocationMonitor = new AllocationMonitor();
 
     public Robot() {
         state = RobotState.getInstance();
+        loopStatsPeriod = state.getPeriod();
+        scenario = state.isPhysicsSim() ? ScenarioRunner.fromEnvironment() : null;
+
+        // Only does anything when Constants was generated with -PbakeConstants
+        if (!Constants.Baked.verify()) {
+            String message = "Constants baked from " + Constants.Baked.SOURCE
+                    + " don't match the deployed properties, rebuild";
+            if (isReal()) {
+                // The literals are compiled in, so the robot would drive on the wrong values
+                throw new IllegalStateException(message);
+            }
+            new Alert(message, AlertType.ERROR).set(true);
+        }
 
         switch (state.getSimMode()) {
             case REAL:
@@ -42,15 +74,24 @@ public class Robot extends LoggedRobot {
                 break;
             case AKIT_SIM:
                 console("This is an ADVANTAGE KIT SIMULATION robot");
-                // Running a physics simulator, log to NT
-                Logger.addDataReceiver(new NT4Publisher());
+                if (scenario == null) {
+                    // Running a physics simulator, log to NT
+                    Logger.addDataReceiver(new NT4Publisher());
+                }
                 break;
             case SIMULATION:
                 console("This is a SIMULATION robot");
                 break;
         }
 
-        if (Constants.Toggles.useAdvantageKit) {
+        if (scenario != null) {
+            // Headless scripted run: as fast as possible, logging to a file
+            console("Running scenario, timing disabled");
+            setUseTiming(false);
+            Logger.addDataReceiver(new WPILOGWriter(scenario.getLogPath()));
+        }
+
+        if (Constants.Toggles.useAdvantageKit || scenario != null) {
             Logger.start(); // Start logging! No more data receivers, replay sources, or metadata values may be added.
             logBuildDetails();
         }
@@ -63,6 +104,10 @@ public class Robot extends LoggedRobot {
             //noinspection CallToPrintStackTrace
             e.printStackTrace();
         }
+
+        if (scenario != null && robotContainer != null && robotContainer.getDrivetrain() != null) {
+            scenario.addReportValue("final pose", () -> robotContainer.getDrivetrain().getPose());
+        }
     }
 
     @Override
@@ -100,6 +145,7 @@ public class Robot extends LoggedRobot {
 
     private void logBuildDetails() {
         Logger.recordMetadata("ProjectName", Constants.robotName); // Set a metadata value
+        Logger.recordMetadata("ConstantsBakedFrom", Constants.Baked.SOURCE == null ? "" : Constants.Baked.SOURCE);
         Logger.recordMetadata("BuildDate", BuildConstants.BUILD_DATE);
         Logger.recordMetadata("GitSHA", BuildConstants.GIT_SHA);
         Logger.recordMetadata("GitDate", BuildConstants.GIT_DATE);
@@ -123,11 +169,61 @@ public class Robot extends LoggedRobot {
 
     @Override
     public void robotPeriodic() {
+        long loopStart = System.nanoTime();
+        if (lastLoopStart != 0) {
+            loopPeriod.record((loopStart - lastLoopStart) / 1e6);
+        }
+        lastLoopStart = loopStart;
+
+        if (profiler.startLoop(getPeriod())) {
+            loopOverruns++;
+        }
         CommandScheduler.getInstance().run();
         if (robotContainer != null) {
+            long start = System.nanoTime();
             robotContainer.periodic();
+            containerTiming.record(System.nanoTime() - start);
         }
+        // Edited property files (sim only) reach the options before they are read
+        StormProp.periodic();
         Options.periodic();
+        updateLoopStats(profiler.endLoop());
+        allocationMonitor.periodic();
+    }
+
+    /**
+     * Loop duration and period percentiles, logged once a second. They cover the current match phase;
+     * when the phase changes its totals are logged once under LoopStats/summary/PHASE.
+     */
+    private void updateLoopStats(double loopMs) {
+        iteration++;
+        loopDuration.record(loopMs);
+
+        if (iteration % LOOP_STATS_EVERY == 0) {
+            loopDuration.log();
+            loopPeriod.log();
+            Logger.recordOutput("LoopStats/overruns", loopOverruns);
+        }
+
+        StatePeriod period = state.getPeriod();
+        if (period != loopStatsPeriod) {
+            if (loopDuration.getCount() > 0) {
+                String prefix = "LoopStats/summary/" + loopStatsPeriod + "/";
+                Logger.recordOutput(prefix + "durationP50", loopDuration.getPercentile(0.50));
+                Logger.recordOutput(prefix + "durationP99", loopDuration.getPercentile(0.99));
+                Logger.recordOutput(prefix + "durationMax", loopDuration.getMax());
+                Logger.recordOutput(prefix + "periodP99", loopPeriod.getPercentile(0.99));
+                Logger.recordOutput(prefix + "periodMax", loopPeriod.getMax());
+                Logger.recordOutput(prefix + "overruns", loopOverruns);
+                Logger.recordOutput(prefix + "loops", loopDuration.getCount());
+                console(loopStatsPeriod + " loop duration " + loopDuration.summary() + ", " + loopOverruns + " overruns");
+                console(loopStatsPeriod + " loop period   " + loopPeriod.summary());
+            }
+            loopDuration.reset();
+            loopPeriod.reset();
+            loopOverruns = 0;
+            loopStatsPeriod = period;
+        }
     }
 
     @Override
@@ -193,14 +289,21 @@ public class Robot extends LoggedRobot {
     @Override
     public void simulationInit() {
         console("SimulationInit");
+        if (scenario != null) {
+            scenario.start();
+        }
     }
 
     @Override
     public void simulationPeriodic() {
+        // Runs after robotPeriodic, so the whole loop is done before the clock moves
+        if (scenario != null) {
+            scenario.periodic();
+        }
     }
 
     public void console(String message) {
-        System.out.println("Robot : " + message);
+        Console.println("Robot : " + message);
     }
 
     public void console(String message, int iterations) {
@@ -18,6 +18,9 @@ import frc.robot.subsystems.drive.DrivetrainBase;
 import frc.robot.subsystems.drive.DrivetrainFactory;
 import frc.robot.subsystems.drive.IllegalDriveTypeException;
 import frc.robot.subsystems.drive.config.SaturnXModuleConstants;
+import frc.utils.Console;
+import frc.utils.motorcontrol.StartupConfigurator;
+import frc.utils.motorcontrol.StatusFrameManager;
 
 import static edu.wpi.first.units.Units.Degrees;
 import static edu.wpi.first.units.Units.MetersPerSecond;
@@ -70,6 +73,9 @@ public class RobotContainer {
             }
 
             configureBindings();
+            // Subsystems only submit their device setup; wait for all of it before the robot can enable
+            StartupConfigurator.getInstance().awaitAll();
+            StatusFrameManager.getInstance().printReport();
             console("[DONE] RobotContainer");
         } catch (IllegalDriveTypeException e) {
             console("Error: Invalid drive type specified: " + e.getMessage());
@@ -98,13 +104,18 @@ public class RobotContainer {
         console("[DONE] configureBindings");
     }
 
+    public DrivetrainBase getDrivetrain() {
+        return drivetrain;
+    }
+
     public void periodic() {
         if (tuner != null) {
             tuner.periodic();
         }
+        StatusFrameManager.getInstance().periodic();
     }
 
     private void console(String message) {
-        System.out.println("RobotContainer : " + message);
+        Console.println("RobotContainer : " + message);
     }
 }
@@ -57,6 +57,11 @@ public class RobotState {
         return stateSimMode;
     }
 
+    // True when mechanisms should be driven by the physics simulation (not on a robot, not replaying a log)
+    public boolean isPhysicsSim() {
+        return stateSimMode == StateSimMode.SIMULATION || stateSimMode == StateSimMode.AKIT_SIM;
+    }
+
     public boolean getUpperSensorTriggered() {
         return upperSensorTriggered;
     }
@@ -28,9 +28,7 @@ public class HoldSwerveModuleStates extends StormCommand {
     }
 
     @Override
-    public void initialize() {
-        super.initialize();
-
+    protected void stormInitialize() {
         targetStates = new SwerveModuleState[4];
         for (int i = 0; i < 4; i++) {
             targetStates[i] = new SwerveModuleState(speed, new Rotation2d(angle));
@@ -38,8 +36,7 @@ public class HoldSwerveModuleStates extends StormCommand {
     }
 
     @Override
-    public void execute() {
-        super.execute();
+    protected void stormExecute() {
         swerveDrive.setTargetModuleStates(targetStates);
     }
 
@@ -49,9 +46,8 @@ public class HoldSwerveModuleStates extends StormCommand {
     }
 
     @Override
-    public void end(boolean interrupted) {
+    protected void stormEnd(boolean interrupted) {
         // Stop all modules but maintain their angles
         swerveDrive.stop();
-        super.end(interrupted);
     }
 }
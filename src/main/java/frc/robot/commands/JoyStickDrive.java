@@ -20,6 +20,8 @@ public class JoyStickDrive extends StormCommand {
     private final DoubleSupplier txSupplier;
     private final DoubleSupplier tySupplier;
     private final DoubleSupplier omegaSupplier;
+    // Reused every loop, the drivetrain copies what it needs
+    private final ChassisSpeeds speeds = new ChassisSpeeds();
 
     private SlewRateLimiter xScaleLimiter;
     private SlewRateLimiter yScaleLimiter;
@@ -32,6 +34,13 @@ public class JoyStickDrive extends StormCommand {
     // So this won't really do anything if the drivetrain is NULL, but it will log.
     public JoyStickDrive(DrivetrainBase drivetrain,
                          CrescendoJoystick joystick) {
+        this(drivetrain, joystick::getWpiX, joystick::getWpiY, joystick::getOmegaSpeed);
+    }
+
+    JoyStickDrive(DrivetrainBase drivetrain,
+                  DoubleSupplier txSupplier,
+                  DoubleSupplier tySupplier,
+                  DoubleSupplier omegaSupplier) {
         if (!isNull(drivetrain)) {
             console("adding drivetrain requirements");
             addRequirements(drivetrain);
@@ -42,16 +51,15 @@ public class JoyStickDrive extends StormCommand {
         this.drivetrain = drivetrain;
         addRequirements(drivetrain);
 
-        txSupplier = joystick::getWpiX;
-        tySupplier = joystick::getWpiY;
-        omegaSupplier = joystick::getOmegaSpeed;
+        this.txSupplier = txSupplier;
+        this.tySupplier = tySupplier;
+        this.omegaSupplier = omegaSupplier;
 
         options = DriveOptions.create();
     }
 
     @Override
-    public void initialize() {
-        super.initialize();
+    protected void stormInitialize() {
         drivetrain.setDriveSpeedScale(Drive.driveSpeedScale);
         xScaleLimiter = new SlewRateLimiter(Drive.linearRateLimiter); //make it into a constant
         yScaleLimiter = new SlewRateLimiter(Drive.linearRateLimiter);
@@ -59,8 +67,7 @@ public class JoyStickDrive extends StormCommand {
     }
 
     @Override
-    public void execute() {
-        super.execute();
+    protected void stormExecute() {
         fieldRelative = options.useFieldRelative.get();
 
         double x = txSupplier.getAsDouble();
@@ -77,7 +84,9 @@ public class JoyStickDrive extends StormCommand {
             omega = omegaScaleLimiter.calculate(omega);
         }
 
-        ChassisSpeeds speeds = new ChassisSpeeds(x, y, omega);
+        speeds.vxMetersPerSecond = x;
+        speeds.vyMetersPerSecond = y;
+        speeds.omegaRadiansPerSecond = omega;
         drivetrain.percentOutputDrive(speeds, fieldRelative);
 
         Logger.recordOutput("x", x);
@@ -89,9 +98,4 @@ public class JoyStickDrive extends StormCommand {
     public boolean isFinished() {
         return false;
     }
-
-    @Override
-    public void end(boolean interrupted) {
-        super.end(interrupted);
-    }
 }
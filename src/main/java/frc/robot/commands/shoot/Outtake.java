@@ -12,19 +12,12 @@ public class Outtake extends StormCommand {
     }
 
     @Override
-    public void initialize() {
-        super.initialize();
+    protected void stormInitialize() {
         s.setShooterState(Shooter.ShooterState.OUTTAKE);
     }
 
     @Override
-    public void execute() {
-        super.execute();
-    }
-
-    @Override
-    public void end(boolean interrupted) {
+    protected void stormEnd(boolean interrupted) {
         s.setShooterState(Shooter.ShooterState.IDLE);
-        super.end(interrupted);
     }
 }
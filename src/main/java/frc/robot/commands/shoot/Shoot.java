@@ -22,9 +22,7 @@ public class Shoot extends StormCommand {
     }
 
     @Override
-    public void initialize() {
-        super.initialize();
-
+    protected void stormInitialize() {
         if (s.isUpperSensorTriggered()) {
             console("start shooting");
             shooterState = Shooter.ShooterState.SPEAKER_SHOOTING;
@@ -47,7 +45,7 @@ public class Shoot extends StormCommand {
     }
 
     @Override
-    public void end(boolean interrupted) {
+    protected void stormEnd(boolean interrupted) {
         if (!interrupted && shooterState == ShooterState.GROUND_PICKUP) {
             console("staged for shooting");
             s.setShooterState(ShooterState.STAGED_FOR_SHOOTING);
@@ -55,7 +53,6 @@ public class Shoot extends StormCommand {
             console("idle");
             s.setShooterState(ShooterState.IDLE);
         }
-        super.end(interrupted);
     }
 }
 
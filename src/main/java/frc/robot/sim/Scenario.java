@@ -0,0 +1,147 @@
+package frc.robot.sim;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A scripted timeline of driver station and joystick inputs, read from a .scenario file.
+ * <p>
+ * Each non blank line is a time in seconds followed by one or more actions; # starts a comment:
+ * <pre>
+ *   0.5   mode=teleop
+ *   1.0   axis.1=-0.8 button.7=true
+ *   150   end
+ * </pre>
+ * Actions are {@code mode=disabled|auto|teleop|test}, {@code axis.N=value}, {@code button.N=true|false},
+ * {@code pov=degrees} (-1 for released) and {@code end}. Lines must be in time order.
+ */
+public class Scenario {
+
+    public enum ActionType {
+        MODE,
+        AXIS,
+        BUTTON,
+        POV,
+        END
+    }
+
+    public record Action(double time, ActionType type, int index, String value) {
+    }
+
+    private final String name;
+    private final List<Action> actions;
+    private final double endTime;
+
+    private Scenario(String name, List<Action> actions, double endTime) {
+        this.name = name;
+        this.actions = Collections.unmodifiableList(actions);
+        this.endTime = endTime;
+    }
+
+    public static Scenario load(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        String name = fileName.endsWith(".scenario") ? fileName.substring(0, fileName.length() - ".scenario".length()) : fileName;
+        return parse(name, Files.readAllLines(path));
+    }
+
+    public static Scenario parse(String name, List<String> lines) {
+        List<Action> actions = new ArrayList<>();
+        double lastTime = 0;
+        double endTime = -1;
+
+        for (int lineNumber = 1; lineNumber <= lines.size(); lineNumber++) {
+            String line = lines.get(lineNumber - 1);
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens.length == 0 || tokens[0].isEmpty()) {
+                continue;
+            }
+
+            double time;
+            try {
+                time = Double.parseDouble(tokens[0]);
+            } catch (NumberFormatException e) {
+                throw error(name, lineNumber, "expected a time in seconds, got '" + tokens[0] + "'");
+            }
+            if (time < lastTime) {
+                throw error(name, lineNumber, "time " + time + " is before the previous line (" + lastTime + ")");
+            }
+            if (tokens.length < 2) {
+                throw error(name, lineNumber, "no actions");
+            }
+            lastTime = time;
+
+            for (int i = 1; i < tokens.length; i++) {
+                Action action = parseAction(name, lineNumber, time, tokens[i]);
+                actions.add(action);
+                if (action.type() == ActionType.END) {
+                    endTime = time;
+                }
+            }
+        }
+
+        if (endTime < 0) {
+            throw new IllegalArgumentException("Scenario " + name + ": no 'end' action");
+        }
+        return new Scenario(name, actions, endTime);
+    }
+
+    private static Action parseAction(String name, int lineNumber, double time, String token) {
+        if (token.equals("end")) {
+            return new Action(time, ActionType.END, 0, "");
+        }
+
+        int equals = token.indexOf('=');
+        if (equals < 0) {
+            throw error(name, lineNumber, "expected key=value, got '" + token + "'");
+        }
+        String key = token.substring(0, equals);
+        String value = token.substring(equals + 1);
+
+        try {
+            if (key.equals("mode")) {
+                if (!List.of("disabled", "auto", "teleop", "test").contains(value)) {
+                    throw error(name, lineNumber, "unknown mode '" + value + "'");
+                }
+                return new Action(time, ActionType.MODE, 0, value);
+            } else if (key.equals("pov")) {
+                Integer.parseInt(value);
+                return new Action(time, ActionType.POV, 0, value);
+            } else if (key.startsWith("axis.")) {
+                Double.parseDouble(value);
+                return new Action(time, ActionType.AXIS, Integer.parseInt(key.substring(5)), value);
+            } else if (key.startsWith("button.")) {
+                if (!value.equals("true") && !value.equals("false")) {
+                    throw error(name, lineNumber, "button value must be true or false, got '" + value + "'");
+                }
+                return new Action(time, ActionType.BUTTON, Integer.parseInt(key.substring(7)), value);
+            }
+        } catch (NumberFormatException e) {
+            throw error(name, lineNumber, "bad number in '" + token + "'");
+        }
+        throw error(name, lineNumber, "unknown action '" + token + "'");
+    }
+
+    private static IllegalArgumentException error(String name, int lineNumber, String message) {
+        return new IllegalArgumentException("Scenario " + name + " line " + lineNumber + ": " + message);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Action> getActions() {
+        return actions;
+    }
+
+    public double getEndTime() {
+        return endTime;
+    }
+}
@@ -0,0 +1,195 @@
+package frc.robot.sim;
+
+import edu.wpi.first.hal.AllianceStationID;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.JoystickSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants;
+import frc.utils.Console;
+import org.littletonrobotics.junction.Logger;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Runs a {@link Scenario} headless and faster than real time.
+ * <p>
+ * Start the simulator with the SCENARIO environment variable set to a scenario name (from
+ * deploy/scenarios) or a path, e.g. {@code ./gradlew simulateJava -Pscenario=match}. Robot then turns off
+ * loop timing and calls {@link #periodic()} once per loop. The runner pauses the simulated clock and
+ * advances it by exactly one loop period per loop, so the robot code sees normal 20 ms loops however fast
+ * they really run. When the scenario ends it writes the summary report, closes the log and exits.
+ */
+public class ScenarioRunner {
+
+    // Advance the clock in steps small enough that 200 Hz notifiers (odometry) run every period
+    private static final int SUBSTEPS = 4;
+
+    private final Scenario scenario;
+    private final Path logFile;
+    private final Path reportFile;
+    private final JoystickSim joystick;
+    private final Map<String, Supplier<Object>> reportValues = new LinkedHashMap<>();
+    private int nextAction = 0;
+    private double simTime = 0;
+
+    private long startNanos = 0;
+    private long lastLoopNanos = 0;
+    private long loops = 0;
+    private double totalLoopMs = 0;
+    private double maxLoopMs = 0;
+    private double maxLoopSimTime = 0;
+
+    private ScenarioRunner(Scenario scenario, Path outputDirectory) {
+        this.scenario = scenario;
+        logFile = outputDirectory.resolve(scenario.getName() + ".wpilog");
+        reportFile = outputDirectory.resolve(scenario.getName() + ".txt");
+        joystick = new JoystickSim(Constants.ButtonBoard.driveJoystickPort);
+    }
+
+    /**
+     * @return the runner for the scenario named by the SCENARIO environment variable, or null if it isn't set
+     */
+    public static ScenarioRunner fromEnvironment() {
+        String name = System.getenv("SCENARIO");
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+
+        Path path = Path.of(name);
+        if (!Files.exists(path)) {
+            path = Filesystem.getDeployDirectory().toPath().resolve("scenarios").resolve(name + ".scenario");
+        }
+        try {
+            Scenario scenario = Scenario.load(path);
+            Path outputDirectory = Filesystem.getOperatingDirectory().toPath().resolve("logs").resolve("scenarios");
+            Files.createDirectories(outputDirectory);
+            return new ScenarioRunner(scenario, outputDirectory);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Can't read scenario " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /** Where the WPILOG for this run should be written. */
+    public String getLogPath() {
+        return logFile.toString();
+    }
+
+    /**
+     * Add a value to the summary report, read when the scenario ends (e.g. the final robot pose).
+     */
+    public void addReportValue(String name, Supplier<Object> value) {
+        reportValues.put(name, value);
+    }
+
+    /** Call once, before the first loop. */
+    public void start() {
+        console("running " + scenario.getName() + " (" + scenario.getEndTime() + " s), log " + logFile);
+        SimHooks.pauseTiming();
+
+        joystick.setAxisCount(6);
+        joystick.setButtonCount(12);
+        joystick.setPOVCount(1);
+        joystick.setPOV(-1);
+
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAllianceStationId(AllianceStationID.Blue1);
+        DriverStationSim.setEnabled(false);
+        DriverStationSim.notifyNewData();
+
+        startNanos = System.nanoTime();
+        lastLoopNanos = startNanos;
+    }
+
+    /** Call at the end of every robot loop. */
+    public void periodic() {
+        long now = System.nanoTime();
+        double loopMs = (now - lastLoopNanos) / 1e6;
+        lastLoopNanos = now;
+        loops++;
+        totalLoopMs += loopMs;
+        if (loopMs > maxLoopMs) {
+            maxLoopMs = loopMs;
+            maxLoopSimTime = simTime;
+        }
+
+        List<Scenario.Action> actions = scenario.getActions();
+        boolean changed = false;
+        while (nextAction < actions.size() && actions.get(nextAction).time() <= simTime) {
+            Scenario.Action action = actions.get(nextAction++);
+            if (action.type() == Scenario.ActionType.END) {
+                finish();
+                return;
+            }
+            apply(action);
+            changed = true;
+        }
+        if (changed) {
+            DriverStationSim.notifyNewData();
+        }
+
+        for (int i = 0; i < SUBSTEPS; i++) {
+            SimHooks.stepTiming(TimedRobot.kDefaultPeriod / SUBSTEPS);
+        }
+        simTime += TimedRobot.kDefaultPeriod;
+    }
+
+    private void apply(Scenario.Action action) {
+        switch (action.type()) {
+            case MODE -> setMode(action.value());
+            case AXIS -> joystick.setRawAxis(action.index(), Double.parseDouble(action.value()));
+            case BUTTON -> joystick.setRawButton(action.index(), Boolean.parseBoolean(action.value()));
+            case POV -> joystick.setPOV(Integer.parseInt(action.value()));
+            case END -> {
+            }
+        }
+    }
+
+    private void setMode(String mode) {
+        DriverStationSim.setAutonomous(mode.equals("auto"));
+        DriverStationSim.setTest(mode.equals("test"));
+        DriverStationSim.setEnabled(!mode.equals("disabled"));
+        console(String.format("%7.2f s: %s", simTime, mode));
+    }
+
+    private void finish() {
+        double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        StringBuilder report = new StringBuilder();
+        report.append("scenario: ").append(scenario.getName()).append('\n');
+        report.append("simulated seconds: ").append(String.format("%.2f", simTime)).append('\n');
+        report.append("wall seconds: ").append(String.format("%.2f", wallSeconds)).append('\n');
+        report.append("speedup: ").append(String.format("%.1fx", simTime / Math.max(wallSeconds, 1e-9))).append('\n');
+        report.append("loops: ").append(loops).append('\n');
+        report.append("mean loop ms: ").append(String.format("%.3f", totalLoopMs / Math.max(loops, 1))).append('\n');
+        report.append("max loop ms: ").append(String.format("%.3f", maxLoopMs))
+                .append(String.format(" (at %.2f s)", maxLoopSimTime)).append('\n');
+        report.append("battery volts: ").append(String.format("%.2f", RobotController.getBatteryVoltage())).append('\n');
+        for (Map.Entry<String, Supplier<Object>> value : reportValues.entrySet()) {
+            report.append(value.getKey()).append(": ").append(value.getValue().get()).append('\n');
+        }
+
+        console("finished\n" + report);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(reportFile))) {
+            writer.print(report);
+        } catch (IOException e) {
+            console("can't write report " + reportFile + ": " + e.getMessage());
+        }
+
+        Logger.end();
+        System.exit(0);
+    }
+
+    private void console(String message) {
+        Console.println("ScenarioRunner: " + message);
+    }
+}
@@ -34,9 +34,7 @@ public class BatteryMonitor extends StormSubsystem {
     }
 
     @Override
-    public void periodic() {
-        super.periodic();
-
+    protected void stormPeriodic() {
         StatePeriod newPeriod = state.getPeriod();
 
         switch (newPeriod) {
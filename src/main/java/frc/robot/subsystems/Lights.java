@@ -39,8 +39,7 @@ public class Lights extends StormSubsystem {
     }
 
     @Override
-    public void periodic() {
-        super.periodic();
+    protected void stormPeriodic() {
         this.batteryPulse = (robotState.getBatteryState() != BatteryState.GOOD);
 
         if (robotState.getIsShooting() || robotState.getIsIntaking()) {
@@ -1,15 +1,26 @@
 package frc.robot.subsystems;
 
+import com.revrobotics.REVLibError;
 import com.revrobotics.spark.SparkBase;
 import com.revrobotics.spark.SparkLowLevel;
 import com.revrobotics.spark.SparkMax;
 import com.revrobotics.spark.config.SparkBaseConfig.IdleMode;
 import com.revrobotics.spark.config.SparkMaxConfig;
 import frc.robot.Constants;
+import frc.robot.Constants.CanBus;
 import frc.robot.Constants.SparkConstants;
 import frc.robot.RobotState;
 import frc.robot.joysticks.CrescendoJoystick;
+import frc.utils.Alert;
+import frc.utils.Alert.AlertType;
+import frc.utils.Console;
 import frc.utils.StormSubsystem;
+import frc.utils.motorcontrol.DeviceConfigWorker;
+import frc.utils.motorcontrol.SparkOutput;
+import frc.utils.motorcontrol.StartupConfigurator;
+import frc.utils.motorcontrol.StatusFrameManager;
+import frc.utils.motorcontrol.StatusFrameManager.SparkSignals;
+import org.littletonrobotics.junction.Logger;
 
 import java.util.function.DoubleSupplier;
 
@@ -19,10 +30,10 @@ import static frc.robot.subsystems.Shooter.Direction.REVERSE;
 public final class Shooter extends StormSubsystem {
 
     private final RobotState robotState;
-    private final SparkMaxConfig upperLeaderConfig;
-    private final SparkMaxConfig lowerConfig;
     private final SparkMax upperLeaderMotor;
     private final SparkMax lowerMotor;
+    private final SparkOutput upperLeaderOutput;
+    private final SparkOutput lowerOutput;
     private final double lowerSpeedScale;
     double upperMotorSpeed = 0;
     double lowerMotorSpeed = 0;
@@ -30,6 +41,20 @@ public final class Shooter extends StormSubsystem {
     ShooterState shooterState;
     DoubleSupplier slider;
     boolean useSlider = false;
+    // What the current state wants, and what was last sent to each motor
+    private IdleMode idleMode = IdleMode.kBrake;
+    private boolean forwardLimitEnabled = true;
+    private boolean reverseLimitEnabled = true;
+    private IdleMode appliedIdleMode = IdleMode.kBrake;
+    private IdleMode appliedLowerIdleMode = IdleMode.kBrake;
+    private boolean appliedForwardLimitEnabled = true;
+    private boolean appliedReverseLimitEnabled = true;
+    private long transitionStartNanos = 0;
+    // Written by the config worker
+    private volatile double lastConfigMs = 0.0;
+    private volatile double lastTransitionMs = 0.0;
+    private final StateConfigStatus upperStatus = new StateConfigStatus("Shooter upper leader");
+    private final StateConfigStatus lowerStatus = new StateConfigStatus("Shooter lower");
 
     public Shooter(CrescendoJoystick joystick) {
         double freeSpeedScale = (double) SparkConstants.FreeSpeedRPM / (double) SparkConstants.Neo550FreeSpeedRPM;
@@ -54,8 +79,8 @@ public final class Shooter extends StormSubsystem {
         SparkMax upperFollowerMotor = new SparkMax(Constants.Shooter.upperFollowerID, SparkLowLevel.MotorType.kBrushless);
         lowerMotor = new SparkMax(Constants.Shooter.lowerID, SparkLowLevel.MotorType.kBrushless);
 
-        upperLeaderConfig = new SparkMaxConfig();
-        lowerConfig = new SparkMaxConfig();
+        SparkMaxConfig upperLeaderConfig = new SparkMaxConfig();
+        SparkMaxConfig lowerConfig = new SparkMaxConfig();
         SparkMaxConfig globalConfig = new SparkMaxConfig();
         SparkMaxConfig upperFollowerConfig = new SparkMaxConfig();
 
@@ -71,29 +96,64 @@ public final class Shooter extends StormSubsystem {
         lowerConfig.apply(globalConfig)
                 .inverted(Constants.Shooter.invertIntake);
 
-        upperLeaderMotor.configure(upperLeaderConfig,
+        // Nothing reads the upper motors back; the lower limit switch is checked every loop
+        StatusFrameManager frames = StatusFrameManager.getInstance();
+        frames.apply(upperLeaderConfig, "Shooter upper leader", SparkSignals.unused().asLeader());
+        frames.apply(upperFollowerConfig, "Shooter upper follower", SparkSignals.unused());
+        frames.apply(lowerConfig, "Shooter lower", SparkSignals.unused().withLimits(StatusFrameManager.LOOP_PERIOD_MS));
+
+        // Start in brake with both limit switches on (IDLE), the state the applied* fields describe
+        upperLeaderConfig.idleMode(idleMode);
+        lowerConfig.idleMode(idleMode);
+        lowerConfig.limitSwitch
+                .forwardLimitSwitchEnabled(forwardLimitEnabled)
+                .reverseLimitSwitchEnabled(reverseLimitEnabled);
+
+        // Configured on the startup threads; RobotContainer waits for them before anything runs
+        StartupConfigurator configurator = StartupConfigurator.getInstance();
+        configurator.configure("Shooter upper leader", upperLeaderMotor, upperLeaderConfig,
                 SparkBase.ResetMode.kResetSafeParameters,
                 SparkBase.PersistMode.kPersistParameters);
 
-        upperFollowerMotor.configure(upperFollowerConfig,
+        configurator.configure("Shooter upper follower", upperFollowerMotor, upperFollowerConfig,
                 SparkBase.ResetMode.kResetSafeParameters,
                 SparkBase.PersistMode.kPersistParameters);
 
+        configurator.configure("Shooter lower", lowerMotor, lowerConfig,
+                SparkBase.ResetMode.kResetSafeParameters,
+                SparkBase.PersistMode.kPersistParameters);
+
+        // periodic() commands both motors every loop, but the speeds rarely change
+        upperLeaderOutput = new SparkOutput(upperLeaderMotor);
+        lowerOutput = new SparkOutput(lowerMotor);
+
         slider = joystick::getSlider;
         robotState = RobotState.getInstance();
         setShooterState(ShooterState.IDLE);
     }
 
     @Override
-    public void periodic() {
+    protected void stormPeriodic() {
         double sliderScale = useSlider ? slider.getAsDouble() : 1.0;
 
-        upperLeaderMotor.set(upperMotorSpeed * sliderScale);
-        lowerMotor.set(lowerMotorSpeed * sliderScale);
+        upperLeaderOutput.set(upperMotorSpeed * sliderScale);
+        lowerOutput.set(lowerMotorSpeed * sliderScale);
         robotState.setUpperSensorTriggered(isUpperSensorTriggered());
+        long now = System.nanoTime();
+        if (upperStatus.retryDue(now)) {
+            applyUpperConfig(true);
+        }
+        if (lowerStatus.retryDue(now)) {
+            applyLowerConfig(true);
+        }
+        upperStatus.periodic();
+        lowerStatus.periodic();
+        Logger.recordOutput("Shooter/configMs", lastConfigMs);
+        Logger.recordOutput("Shooter/transitionMs", lastTransitionMs);
     }
 
     public void setShooterState(ShooterState state) {
+        transitionStartNanos = System.nanoTime();
         this.shooterState = state;
         robotState.setShooterState(state);
         useSlider = false;
@@ -139,33 +199,159 @@ public final class Shooter extends StormSubsystem {
             }
 
             default ->
-                System.out.println("invalid state");
+                Console.println("invalid state");
         }
+
+        applyStateConfig();
     }
 
     private void setIdleModeAll(IdleMode mode) {
-        upperLeaderConfig.idleMode(mode);
-        lowerConfig.idleMode(mode);
-
-        upperLeaderMotor.configure(upperLeaderConfig, SparkBase.ResetMode.kNoResetSafeParameters,
-                SparkBase.PersistMode.kNoPersistParameters);
-
-        lowerMotor.configure(lowerConfig, SparkBase.ResetMode.kNoResetSafeParameters,
-                SparkBase.PersistMode.kNoPersistParameters);
+        idleMode = mode;
     }
 
     private void setLimitSwitch(Direction d, boolean enabled) {
         switch (d) {
             case FORWARD -> {
-                lowerConfig.limitSwitch.forwardLimitSwitchEnabled(enabled);
+                forwardLimitEnabled = enabled;
             }
             case REVERSE -> {
-                lowerConfig.limitSwitch.reverseLimitSwitchEnabled(enabled);
+                reverseLimitEnabled = enabled;
             }
         }
+    }
+
+    /**
+     * Send what setShooterState asked for, one configure per motor and only to motors whose settings
+     * changed. REVLib only sets idle mode and limit switches through configure(), so the calls go to the
+     * config worker rather than blocking the loop. Each config holds the motor's full state settings,
+     * so when a newer transition replaces one that hasn't been sent yet nothing is lost.
+     * <p>
+     * The applied* fields record what was sent. If a configure fails, the motor may still have its old
+     * settings, so they're sent again rather than trusted: by the next transition, and by a few retries
+     * (see {@link StateConfigStatus}).
+     */
+    private void applyStateConfig() {
+        upperStatus.newState();
+        lowerStatus.newState();
+
+        if (upperStatus.failed || idleMode != appliedIdleMode) {
+            applyUpperConfig(false);
+        }
+
+        if (lowerStatus.failed
+                || idleMode != appliedLowerIdleMode
+                || forwardLimitEnabled != appliedForwardLimitEnabled
+                || reverseLimitEnabled != appliedReverseLimitEnabled) {
+            applyLowerConfig(false);
+        }
+    }
+
+    private void applyUpperConfig(boolean retry) {
+        appliedIdleMode = idleMode;
+        SparkMaxConfig config = new SparkMaxConfig();
+        config.idleMode(idleMode);
+        applyConfig(upperLeaderMotor, config, upperStatus, retry);
+    }
+
+    private void applyLowerConfig(boolean retry) {
+        appliedLowerIdleMode = idleMode;
+        appliedForwardLimitEnabled = forwardLimitEnabled;
+        appliedReverseLimitEnabled = reverseLimitEnabled;
+        SparkMaxConfig config = new SparkMaxConfig();
+        config.idleMode(idleMode);
+        config.limitSwitch
+                .forwardLimitSwitchEnabled(forwardLimitEnabled)
+                .reverseLimitSwitchEnabled(reverseLimitEnabled);
+        applyConfig(lowerMotor, config, lowerStatus, retry);
+    }
 
-        lowerMotor.configure(lowerConfig, SparkBase.ResetMode.kNoResetSafeParameters,
-                SparkBase.PersistMode.kNoPersistParameters);
+    private void applyConfig(SparkMax motor, SparkMaxConfig config, StateConfigStatus status, boolean retry) {
+        long requested = transitionStartNanos;
+        status.submitted(retry);
+        DeviceConfigWorker.getInstance().submit(status.name, () -> {
+            long start = System.nanoTime();
+            REVLibError error;
+            try {
+                error = motor.configure(config, SparkBase.ResetMode.kNoResetSafeParameters,
+                        SparkBase.PersistMode.kNoPersistParameters);
+            } catch (RuntimeException e) {
+                status.completed(false);
+                throw e;
+            }
+            long end = System.nanoTime();
+            lastConfigMs = (end - start) / 1e6;
+            // From setShooterState to the motor having its settings, including time queued behind other work
+            lastTransitionMs = (end - requested) / 1e6;
+            status.completed(error == REVLibError.kOk);
+            if (error != REVLibError.kOk) {
+                status.errors.println("Shooter: error configuring " + status.name + ": " + error);
+            }
+        });
+    }
+
+    /**
+     * Whether a motor has the state settings last sent to it. A failed configure is retried after
+     * {@link #FIRST_RETRY_NANOS}, doubling each time, and at most canBus.configRetries times per state
+     * change. A missing or rebooting Spark would otherwise get a blocking configure every loop, holding
+     * up everything else on the config worker (e.g. live PID changes). The alert stays up until a
+     * configure succeeds.
+     */
+    private static final class StateConfigStatus {
+        private static final long FIRST_RETRY_NANOS = 100_000_000L;
+
+        final String name;
+        private final Alert unconfirmed;
+        // Config worker thread only
+        final Console.Site errors = new Console.Site(1.0);
+        // Written by the config worker
+        private volatile boolean inFlight = false;
+        volatile boolean failed = false;
+        private volatile long failedAtNanos = 0;
+        // Main thread
+        private int retries = 0;
+        private boolean gaveUp = false;
+
+        StateConfigStatus(String name) {
+            this.name = name;
+            unconfirmed = new Alert(name + " state config not confirmed", AlertType.ERROR);
+        }
+
+        /** A new state gets its own retries. */
+        void newState() {
+            retries = 0;
+            gaveUp = false;
+        }
+
+        boolean retryDue(long now) {
+            return failed && !inFlight && retries < CanBus.configRetries
+                    && now - failedAtNanos >= FIRST_RETRY_NANOS << retries;
+        }
+
+        void submitted(boolean retry) {
+            inFlight = true;
+            if (retry) {
+                retries++;
+            }
+        }
+
+        // Config worker thread
+        void completed(boolean ok) {
+            if (!ok) {
+                failedAtNanos = System.nanoTime();
+            }
+            failed = !ok;
+            inFlight = false;
+        }
+
+        void periodic() {
+            boolean unconfirmedNow = failed;
+            unconfirmed.set(unconfirmedNow);
+            if (unconfirmedNow && !inFlight && retries >= CanBus.configRetries && !gaveUp) {
+                gaveUp = true;
+                Console.println("Shooter: " + name + " still not configured after " + retries
+                        + " retries, trying again on the next state change");
+            }
+        }
     }
 
     public void setMotorSpeeds(Direction d, double lowerSpeed, double upperSpeed) {
@@ -1,16 +1,27 @@
 package frc.robot.subsystems.drive;
 
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.units.measure.Angle;
-import edu.wpi.first.units.measure.LinearVelocity;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.Constants.Drive;
 import frc.robot.Options.DriveOptions;
 import frc.robot.subsystems.drive.config.SwerveModuleGroup;
 import frc.robot.subsystems.drive.config.SwerveModule;
-import com.studica.frc.AHRS;
+import frc.utils.SampleRingBuffer;
+import frc.utils.swerve.ModuleLimits;
+import frc.utils.swerve.SwerveSetpoint;
+import frc.utils.swerve.SwerveSetpointGenerator;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.Optional;
 
 import static edu.wpi.first.units.Units.*;
 
@@ -19,14 +30,34 @@ public class BasicSwerve extends DrivetrainBase {
     final SwerveModuleGroup moduleGroup;
     final SwerveModule[] modules;
     final SwerveDriveKinematics kinematics;
+    private final ModuleStateBuffer moduleStates;
     private final DriveOptions options;
-    private final AHRS navx;
+    private final Gyro gyro;
+
+    // Kinematically limited drive mode (DriveOptions.useSetpointGenerator)
+    private final SwerveSetpointGenerator setpointGenerator;
+    private final ModuleLimits moduleLimits;
+    private final SwerveSetpoint setpoint;
+    private boolean setpointNeedsReset = true;
+
+    // High-rate odometry, sampled on its own thread and replayed into the pose estimator every loop
+    private final OdometryThread odometryThread;
+    private final OdometryInputsAutoLogged odometryInputs = new OdometryInputsAutoLogged();
+    private final SwerveDrivePoseEstimator poseEstimator;
+    private final PoseHistory poseHistory;
+    private final SwerveModulePosition[] modulePositions;
+    private final int yawChannel;
+    private final int yawRateChannel;
+    private final int[] drivePositionChannels;
+    private final int[] steerAngleChannels;
+
+    // Physics simulation: where the robot really is, as opposed to where odometry thinks it is
+    private Pose2d simPose = Pose2d.kZero;
 
     public BasicSwerve() {
         super();
 
-        navx = new AHRS(AHRS.NavXComType.kMXP_SPI, AHRS.NavXUpdateRate.k50Hz);
-        navx.zeroYaw();
+        gyro = new Gyro();
 
         options = DriveOptions.create();
 
@@ -36,10 +67,36 @@ public class BasicSwerve extends DrivetrainBase {
 
         kinematics = new SwerveDriveKinematics(moduleGroup.getModuleTranslations());
         modules = moduleGroup.getModules();
+        moduleStates = new ModuleStateBuffer(moduleGroup.getModuleTranslations());
+
+        setpointGenerator = SwerveSetpointGenerator.builder()
+                .kinematics(kinematics)
+                .moduleLocations(moduleGroup.getModuleTranslations())
+                .build();
+        setpointGenerator.setUseAnalyticDriveSolver(Drive.analyticDriveSolver);
+        moduleLimits = moduleGroup.getModuleLimits();
+        setpoint = SwerveSetpoint.zero(modules.length);
+        console("Setpoint generator limits: " + moduleLimits);
+
+        odometryThread = new OdometryThread(Drive.odometryFrequency);
+        yawChannel = odometryThread.registerSignal(gyro::readYawDegrees);
+        yawRateChannel = odometryThread.registerSignal(gyro::readYawRateDegreesPerSecond);
+        drivePositionChannels = new int[modules.length];
+        steerAngleChannels = new int[modules.length];
+        modulePositions = new SwerveModulePosition[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            SwerveModule m = modules[i];
+            drivePositionChannels[i] = odometryThread.registerSignal(m::readDrivePosition);
+            steerAngleChannels[i] = odometryThread.registerSignal(m::readSteerAngle);
+            modulePositions[i] = new SwerveModulePosition(m.readDrivePosition(), Rotation2d.fromDegrees(m.readSteerAngle()));
+        }
+        poseEstimator = new SwerveDrivePoseEstimator(kinematics, getRotation(), modulePositions, Pose2d.kZero);
+        poseHistory = new PoseHistory((int) Math.ceil(Drive.odometryFrequency * Drive.poseHistorySeconds), modules.length);
+        odometryThread.start();
 
         SmartDashboard.putData("Swerve Drive", builder -> {
             builder.setSmartDashboardType("SwerveDrive");
-            builder.addDoubleProperty("Robot Angle", () -> -navx.getYaw(), null);
+            builder.addDoubleProperty("Robot Angle", () -> gyro.getRotation().getDegrees(), null);
             for (SwerveModule m : modules) {
                 builder.addDoubleProperty(m.name + " Angle", m::getSteerAngle, null);
                 builder.addDoubleProperty(m.name + " Velocity", m::getDriveVelocity, null);
@@ -48,8 +105,8 @@ public class BasicSwerve extends DrivetrainBase {
     }
 
     @Override
-    public void periodic() {
-        super.periodic();
+    protected void stormPeriodic() {
+        updateOdometry();
 
         if (options.resetOrientation.get()) {
             resetOrientation();
@@ -57,12 +114,33 @@ public class BasicSwerve extends DrivetrainBase {
         }
         moduleGroup.periodic();
 
-        if (options.allowRotation.get()) {
-            SwerveModuleState[] targetStates = kinematics.toSwerveModuleStates(m_chassisSpeeds);
-            setModuleStates(targetStates);
+        if (options.allowRotation.get() && options.useSetpointGenerator.get()) {
+            driveWithSetpointGenerator();
+        } else if (options.allowRotation.get()) {
+            setModuleStates(moduleStates.toSwerveModuleStates(m_chassisSpeeds));
+            setpointNeedsReset = true;
         } else {
             driveWithoutRotation();
+            setpointNeedsReset = true;
+        }
+    }
+
+    @Override
+    public void simulationPeriodic() {
+        if (!moduleGroup.isSimulated()) {
+            return;
         }
+
+        // The simulated modules report their true state, so their measurements drive the chassis
+        double dt = TimedRobot.kDefaultPeriod;
+        SwerveModuleState[] trueStates = moduleGroup.getMeasuredStates();
+        ChassisSpeeds trueSpeeds = kinematics.toChassisSpeeds(trueStates);
+        gyro.simulationUpdate(trueSpeeds.omegaRadiansPerSecond, dt);
+        simPose = simPose.exp(new Twist2d(trueSpeeds.vxMetersPerSecond * dt,
+                trueSpeeds.vyMetersPerSecond * dt, trueSpeeds.omegaRadiansPerSecond * dt));
+
+        Logger.recordOutput("BasicSwerve/simPose", simPose);
+        Logger.recordOutput("BasicSwerve/simStates", trueStates);
     }
 
     public void setModuleStates(SwerveModuleState[] states) {
@@ -70,29 +148,152 @@ public class BasicSwerve extends DrivetrainBase {
     }
 
     public void setTargetModuleStates(SwerveModuleState[] states) {
-        m_chassisSpeeds = kinematics.toChassisSpeeds(states);
+        ChassisSpeeds speeds = kinematics.toChassisSpeeds(states);
+        m_chassisSpeeds.vxMetersPerSecond = speeds.vxMetersPerSecond;
+        m_chassisSpeeds.vyMetersPerSecond = speeds.vyMetersPerSecond;
+        m_chassisSpeeds.omegaRadiansPerSecond = speeds.omegaRadiansPerSecond;
+    }
+
+    private void updateOdometry() {
+        int numModules = modules.length;
+        SampleRingBuffer samples = odometryThread.getSamples();
+        int count = samples.available();
+
+        if (count > 0) {
+            odometryInputs.setSampleCount(count, numModules);
+            for (int i = 0; i < count; i++) {
+                odometryInputs.timestamps[i] = samples.timestamp(i);
+                odometryInputs.yawDegrees[i] = samples.value(i, yawChannel);
+                odometryInputs.yawRateDegreesPerSecond[i] = samples.value(i, yawRateChannel);
+                for (int m = 0; m < numModules; m++) {
+                    odometryInputs.drivePositionsMeters[i * numModules + m] = samples.value(i, drivePositionChannels[m]);
+                    odometryInputs.steerAnglesDegrees[i * numModules + m] = samples.value(i, steerAngleChannels[m]);
+                }
+            }
+            samples.consume(count);
+        } else {
+            // Nothing from the odometry thread this loop, read one sample now
+            odometryInputs.setSampleCount(1, numModules);
+            odometryInputs.timestamps[0] = RobotController.getFPGATime() / 1e6;
+            odometryInputs.yawDegrees[0] = gyro.readYawDegrees();
+            odometryInputs.yawRateDegreesPerSecond[0] = gyro.readYawRateDegreesPerSecond();
+            for (int m = 0; m < numModules; m++) {
+                odometryInputs.drivePositionsMeters[m] = modules[m].readDrivePosition();
+                odometryInputs.steerAnglesDegrees[m] = modules[m].readSteerAngle();
+            }
+        }
+
+        // In replay this swaps in the samples from the log
+        Logger.processInputs("Drive/Odometry", odometryInputs);
+
+        int sampleCount = odometryInputs.timestamps.length;
+        for (int i = 0; i < sampleCount; i++) {
+            for (int m = 0; m < numModules; m++) {
+                modulePositions[m].distanceMeters = odometryInputs.drivePositionsMeters[i * numModules + m];
+                modulePositions[m].angle = Rotation2d.fromDegrees(odometryInputs.steerAnglesDegrees[i * numModules + m]);
+            }
+            double timestamp = odometryInputs.timestamps[i];
+            poseEstimator.updateWithTime(timestamp, Rotation2d.fromDegrees(odometryInputs.yawDegrees[i]), modulePositions);
+            poseHistory.addSample(timestamp, poseEstimator.getEstimatedPosition(), modulePositions);
+        }
+
+        // One gyro snapshot per loop, from the newest sample
+        if (sampleCount > 0) {
+            int last = sampleCount - 1;
+            gyro.update(odometryInputs.timestamps[last], odometryInputs.yawDegrees[last],
+                    odometryInputs.yawRateDegreesPerSecond[last]);
+        }
+
+        Logger.recordOutput("BasicSwerve/pose", getPose());
+        Logger.recordOutput("BasicSwerve/gyroYaw", gyro.getYawDegrees());
+        Logger.recordOutput("BasicSwerve/gyroYawRate", gyro.getYawRateRadiansPerSecond());
+        Logger.recordOutput("BasicSwerve/odometrySamples", sampleCount);
+        Logger.recordOutput("BasicSwerve/odometryDropped", samples.dropped());
+    }
+
+    private void driveWithSetpointGenerator() {
+        // Start from where the modules actually are, not from a stale setpoint
+        if (setpointNeedsReset) {
+            resetSetpoint();
+            setpointNeedsReset = false;
+        }
+
+        setpointGenerator.generateSetpoint(moduleLimits, setpoint, m_chassisSpeeds, TimedRobot.kDefaultPeriod, setpoint);
+
+        // The modules don't modify the states they are given, so the generator's own setpoint can go
+        // straight to them
+        SwerveModuleState[] setpointStates = setpoint.moduleStates();
+        setModuleStates(setpointStates);
+
+        Logger.recordOutput("BasicSwerve/setpointSpeeds", setpoint.chassisSpeeds());
+        Logger.recordOutput("BasicSwerve/setpointStates", setpointStates);
+        setpointGenerator.recordRootFinderOutputs("BasicSwerve/setpointRootFinder");
+    }
+
+    private void resetSetpoint() {
+        SwerveModuleState[] setpointStates = setpoint.moduleStates();
+        for (int i = 0; i < modules.length; i++) {
+            setpointStates[i].speedMetersPerSecond = modules[i].getDriveVelocity();
+            setpointStates[i].angle = Rotation2d.fromDegrees(modules[i].getSteerAngle());
+        }
+
+        ChassisSpeeds measured = kinematics.toChassisSpeeds(setpointStates);
+        setpoint.chassisSpeeds().vxMetersPerSecond = measured.vxMetersPerSecond;
+        setpoint.chassisSpeeds().vyMetersPerSecond = measured.vyMetersPerSecond;
+        setpoint.chassisSpeeds().omegaRadiansPerSecond = measured.omegaRadiansPerSecond;
     }
 
     private void driveWithoutRotation() {
-        LinearVelocity speed = MetersPerSecond.of(
-                Math.hypot(m_chassisSpeeds.vxMetersPerSecond, m_chassisSpeeds.vyMetersPerSecond));
-        Angle angle = Radians.of(
+        double speed = Math.hypot(m_chassisSpeeds.vxMetersPerSecond, m_chassisSpeeds.vyMetersPerSecond);
+        double angleDegrees = Math.toDegrees(
                 Math.atan2(m_chassisSpeeds.vyMetersPerSecond, m_chassisSpeeds.vxMetersPerSecond));
 
         for (SwerveModule m : modules) {
             m.setDriveVelocity(speed);
-            m.setSteerAngle(angle);
+            m.setSteerAngle(angleDegrees);
         }
     }
 
     @Override
     public Rotation2d getRotation() {
-        return new Rotation2d(Degrees.of(-navx.getAngle()));
+        return gyro.getRotation();
+    }
+
+    @Override
+    protected double getFieldRelativeYawRadians() {
+        return Math.toRadians(gyro.predictYawDegrees(RobotController.getFPGATime() / 1e6 + Drive.headingLookahead));
+    }
+
+    @Override
+    public Pose2d getPose() {
+        return poseEstimator.getEstimatedPosition();
+    }
+
+    /**
+     * Where the robot was at a past time, e.g. when a camera frame was captured. Times older than
+     * drive.poseHistorySeconds return the oldest pose kept.
+     *
+     * @param timestamp FPGA time in seconds
+     */
+    public Optional<Pose2d> getPoseAt(double timestamp) {
+        return poseHistory.getPoseAt(timestamp);
+    }
+
+    public PoseHistory getPoseHistory() {
+        return poseHistory;
     }
 
     @Override
     public void resetOrientation() {
-        navx.zeroYaw();
+        gyro.zeroYaw();
+
+        // Frames already queued carry the old yaw. Drop them and keep the position, now facing forward
+        SampleRingBuffer samples = odometryThread.getSamples();
+        samples.consume(samples.available());
+        poseEstimator.resetPosition(Rotation2d.kZero, modulePositions,
+                new Pose2d(getPose().getTranslation(), Rotation2d.kZero));
+        // Older poses are in the old frame and would be interpolated across the jump
+        poseHistory.clear();
     }
 
     public void stop() {
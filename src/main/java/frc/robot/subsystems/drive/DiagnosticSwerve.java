@@ -2,9 +2,6 @@ package frc.robot.subsystems.drive;
 
 import org.littletonrobotics.junction.Logger;
 
-import com.ctre.phoenix6.hardware.CANcoder;
-import com.revrobotics.spark.SparkMax;
-
 import frc.robot.Constants.Drive;
 import frc.robot.subsystems.drive.config.SaturnXModuleConstants;
 import frc.robot.subsystems.drive.config.SwerveModule;
@@ -19,9 +16,6 @@ public class DiagnosticSwerve extends DrivetrainBase {
 
     final SwerveModuleGroup moduleGroup;
     final SwerveModule[] modules;
-    final SparkMax[] driveMotors;
-    final SparkMax[] steerMotors;
-    final CANcoder[] encoders;
 
     final int FRONT_LEFT = SaturnXModuleConstants.FRONT_LEFT;
     final int FRONT_RIGHT = SaturnXModuleConstants.FRONT_RIGHT;
@@ -35,40 +29,39 @@ public class DiagnosticSwerve extends DrivetrainBase {
         setMaxVelocities(moduleGroup.getMaxLinearVelocity().in(MetersPerSecond),
                 moduleGroup.getMaxAngularVelocity().in(RadiansPerSecond));
 
-        driveMotors = moduleGroup.getDriveMotors();
-        steerMotors = moduleGroup.getSteerMotors();
-        encoders = moduleGroup.getEncoders();
         modules = moduleGroup.getModules();
     }
 
     @Override
-    public void periodic() {
+    protected void stormPeriodic() {
         double driveSpeed = m_chassisSpeeds.vxMetersPerSecond;
         double steerSpeed = m_chassisSpeeds.omegaRadiansPerSecond;
 
+        moduleGroup.refreshSignals();
         for (SwerveModule m : modules) {
+            m.updateInputs();
             m.driveMotorSet(driveSpeed);
             m.steerMotorSet(steerSpeed);
         }
 
-        Logger.recordOutput("fl steer", steerMotors[FRONT_LEFT].getEncoder().getPosition());
-        Logger.recordOutput("fr steer", steerMotors[FRONT_RIGHT].getEncoder().getPosition());
-        Logger.recordOutput("bl steer", steerMotors[BACK_LEFT].getEncoder().getPosition());
-        Logger.recordOutput("br steer", steerMotors[BACK_RIGHT].getEncoder().getPosition());
-
-        Logger.recordOutput("fl encoder", encoders[FRONT_LEFT].getPosition().getValue());
-        Logger.recordOutput("fr encoder", encoders[FRONT_RIGHT].getPosition().getValue());
-        Logger.recordOutput("bl encoder", encoders[BACK_LEFT].getPosition().getValue());
-        Logger.recordOutput("br encoder", encoders[BACK_RIGHT].getPosition().getValue());
-
-        Logger.recordOutput("fl drive pos", driveMotors[FRONT_LEFT].getEncoder().getPosition());
-        Logger.recordOutput("fr drive pos", driveMotors[FRONT_RIGHT].getEncoder().getPosition());
-        Logger.recordOutput("bl drive pos", driveMotors[BACK_LEFT].getEncoder().getPosition());
-        Logger.recordOutput("br drive pos", driveMotors[BACK_RIGHT].getEncoder().getPosition());
-
-        Logger.recordOutput("fl drive vel", driveMotors[FRONT_LEFT].getEncoder().getVelocity());
-        Logger.recordOutput("fr drive vel", driveMotors[FRONT_RIGHT].getEncoder().getVelocity());
-        Logger.recordOutput("bl drive vel", driveMotors[BACK_LEFT].getEncoder().getVelocity());
-        Logger.recordOutput("br drive vel", driveMotors[BACK_RIGHT].getEncoder().getVelocity());
+        Logger.recordOutput("fl steer", modules[FRONT_LEFT].getInputs().steerPositionDegrees);
+        Logger.recordOutput("fr steer", modules[FRONT_RIGHT].getInputs().steerPositionDegrees);
+        Logger.recordOutput("bl steer", modules[BACK_LEFT].getInputs().steerPositionDegrees);
+        Logger.recordOutput("br steer", modules[BACK_RIGHT].getInputs().steerPositionDegrees);
+
+        Logger.recordOutput("fl encoder", modules[FRONT_LEFT].getInputs().canCoderPositionDegrees);
+        Logger.recordOutput("fr encoder", modules[FRONT_RIGHT].getInputs().canCoderPositionDegrees);
+        Logger.recordOutput("bl encoder", modules[BACK_LEFT].getInputs().canCoderPositionDegrees);
+        Logger.recordOutput("br encoder", modules[BACK_RIGHT].getInputs().canCoderPositionDegrees);
+
+        Logger.recordOutput("fl drive pos", modules[FRONT_LEFT].getInputs().drivePositionMeters);
+        Logger.recordOutput("fr drive pos", modules[FRONT_RIGHT].getInputs().drivePositionMeters);
+        Logger.recordOutput("bl drive pos", modules[BACK_LEFT].getInputs().drivePositionMeters);
+        Logger.recordOutput("br drive pos", modules[BACK_RIGHT].getInputs().drivePositionMeters);
+
+        Logger.recordOutput("fl drive vel", modules[FRONT_LEFT].getInputs().driveVelocityMetersPerSecond);
+        Logger.recordOutput("fr drive vel", modules[FRONT_RIGHT].getInputs().driveVelocityMetersPerSecond);
+        Logger.recordOutput("bl drive vel", modules[BACK_LEFT].getInputs().driveVelocityMetersPerSecond);
+        Logger.recordOutput("br drive vel", modules[BACK_RIGHT].getInputs().driveVelocityMetersPerSecond);
     }
 }
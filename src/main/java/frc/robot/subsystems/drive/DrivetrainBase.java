@@ -1,6 +1,7 @@
 package frc.robot.subsystems.drive;
 
 import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import frc.robot.Constants.Drive;
@@ -16,8 +17,10 @@ public abstract class DrivetrainBase extends StormSubsystem {
     protected double m_driveSpeedScale = 0;
     protected boolean m_fieldRelative = false;
 
+    // Written in place every loop; copy the values rather than keeping a reference
     @AutoLogOutput
-    protected ChassisSpeeds m_chassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
+    protected final ChassisSpeeds m_chassisSpeeds = new ChassisSpeeds(0.0, 0.0, 0.0);
+    private final ChassisSpeeds m_percentSpeeds = new ChassisSpeeds();
 
     public DrivetrainBase() {
         setDriveSpeedScale(Drive.driveSpeedScale);
@@ -45,10 +48,12 @@ public abstract class DrivetrainBase extends StormSubsystem {
     }
 
     // Be careful scaling ChassisSpeeds. Need to scale X and Y the same or your robot will move in the wrong direction!
+    // Scales in place, so the drive loop doesn't make a new ChassisSpeeds every call. Returns speeds.
     public ChassisSpeeds scaleChassisSpeeds(ChassisSpeeds speeds, double scale) {
-        return new ChassisSpeeds(scale * speeds.vxMetersPerSecond,
-                scale * speeds.vyMetersPerSecond,
-                scale * speeds.omegaRadiansPerSecond);
+        speeds.vxMetersPerSecond *= scale;
+        speeds.vyMetersPerSecond *= scale;
+        speeds.omegaRadiansPerSecond *= scale;
+        return speeds;
     }
 
     /**
@@ -65,13 +70,21 @@ public abstract class DrivetrainBase extends StormSubsystem {
     }
 
     public void drive(ChassisSpeeds speeds, boolean fieldRelative, double speedScale) {
+        double vx = speeds.vxMetersPerSecond;
+        double vy = speeds.vyMetersPerSecond;
         if (fieldRelativeOn && fieldRelative) {
-            Rotation2d rotation = getRotation();
-            m_chassisSpeeds = ChassisSpeeds.fromFieldRelativeSpeeds(speeds, rotation);
+            // ChassisSpeeds.fromFieldRelativeSpeeds, without the new objects
+            double yaw = getFieldRelativeYawRadians();
+            double cos = Math.cos(yaw);
+            double sin = Math.sin(yaw);
+            m_chassisSpeeds.vxMetersPerSecond = vx * cos + vy * sin;
+            m_chassisSpeeds.vyMetersPerSecond = -vx * sin + vy * cos;
         } else {
-            m_chassisSpeeds = speeds;
+            m_chassisSpeeds.vxMetersPerSecond = vx;
+            m_chassisSpeeds.vyMetersPerSecond = vy;
         }
-        m_chassisSpeeds = scaleChassisSpeeds(m_chassisSpeeds, speedScale);
+        m_chassisSpeeds.omegaRadiansPerSecond = speeds.omegaRadiansPerSecond;
+        scaleChassisSpeeds(m_chassisSpeeds, speedScale);
     }
 
     /**
@@ -83,16 +96,26 @@ public abstract class DrivetrainBase extends StormSubsystem {
      * @param fieldRelative True for field relative driving
      */
     public void percentOutputDrive(ChassisSpeeds speeds, boolean fieldRelative) {
-        drive(new ChassisSpeeds(speeds.vxMetersPerSecond * m_maxVelocityMetersPerSecond,
-                speeds.vyMetersPerSecond * m_maxVelocityMetersPerSecond,
-                speeds.omegaRadiansPerSecond * m_maxAngularVelocityRadiansPerSecond),
-                fieldRelative);
+        m_percentSpeeds.vxMetersPerSecond = speeds.vxMetersPerSecond * m_maxVelocityMetersPerSecond;
+        m_percentSpeeds.vyMetersPerSecond = speeds.vyMetersPerSecond * m_maxVelocityMetersPerSecond;
+        m_percentSpeeds.omegaRadiansPerSecond = speeds.omegaRadiansPerSecond * m_maxAngularVelocityRadiansPerSecond;
+        drive(m_percentSpeeds, fieldRelative);
     }
 
     public Rotation2d getRotation() {
         return new Rotation2d();
     }
 
+    // The heading, in radians, used to turn field relative speeds into robot relative ones. Drives that
+    // know their yaw rate can look ahead to when the command will actually take effect
+    protected double getFieldRelativeYawRadians() {
+        return getRotation().getRadians();
+    }
+
+    public Pose2d getPose() {
+        return new Pose2d();
+    }
+
     // Teach the drive that the current orientation is facing the opposite end of the field
     // this function is ideally alliance aware, and manages the pose and gyro as needed
     public void resetOrientation() {
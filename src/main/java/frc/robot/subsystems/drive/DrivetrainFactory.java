@@ -1,13 +1,15 @@
 package frc.robot.subsystems.drive;
 
+import frc.utils.Console;
+
 public class DrivetrainFactory {
     protected static DrivetrainBase instance;
 
     public static DrivetrainBase getInstance(String driveType, String driveSubtype) throws IllegalDriveTypeException {
         if (instance == null) {
-            System.out.println("Initializing " + driveType);
+            Console.println("Initializing " + driveType);
             if (driveSubtype != null && !driveSubtype.isEmpty()) {
-                System.out.println("Ignoring drive subtype " + driveSubtype);
+                Console.println("Ignoring drive subtype " + driveSubtype);
             }
             switch (driveType.toLowerCase()) {
                 case "diagnosticswerve" -> instance = new DiagnosticSwerve();
@@ -0,0 +1,103 @@
+package frc.robot.subsystems.drive;
+
+import com.studica.frc.AHRS;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.RobotState;
+
+/**
+ * The navX, read once per loop. The raw read methods are for the odometry thread, which samples the
+ * gyro at its full update rate; everything else should use the snapshot taken by {@link #update},
+ * so every caller in a loop sees the same heading and nothing allocates a new Rotation2d per call.
+ * <p>
+ * All values are counter-clockwise positive, matching WPILib (the navX itself is clockwise positive).
+ */
+public class Gyro {
+
+    private final AHRS navx;
+    private final boolean simulated;
+    // Written by the physics sim on the main thread, read by the odometry thread
+    private volatile double simYawDegrees = 0;
+    private volatile double simYawRateDegreesPerSecond = 0;
+    private double timestamp = 0;
+    private double yawDegrees = 0;
+    private double yawRateDegreesPerSecond = 0;
+    private Rotation2d rotation = Rotation2d.kZero;
+
+    public Gyro() {
+        navx = new AHRS(AHRS.NavXComType.kMXP_SPI, AHRS.NavXUpdateRate.k200Hz);
+        navx.zeroYaw();
+        simulated = RobotState.getInstance().isPhysicsSim();
+    }
+
+    /** Current yaw in degrees, straight from the sensor. Safe to call from the odometry thread. */
+    public double readYawDegrees() {
+        return simulated ? simYawDegrees : -navx.getAngle();
+    }
+
+    /** Current yaw rate in degrees per second, straight from the sensor. Safe to call from the odometry thread. */
+    public double readYawRateDegreesPerSecond() {
+        return simulated ? simYawRateDegreesPerSecond : -navx.getRate();
+    }
+
+    /**
+     * In simulation, turn the (simulated) robot. Does nothing on a real robot.
+     *
+     * @param omegaRadiansPerSecond chassis angular velocity, counter-clockwise positive
+     * @param dt seconds
+     */
+    public void simulationUpdate(double omegaRadiansPerSecond, double dt) {
+        if (!simulated) {
+            return;
+        }
+        simYawRateDegreesPerSecond = Math.toDegrees(omegaRadiansPerSecond);
+        simYawDegrees += simYawRateDegreesPerSecond * dt;
+    }
+
+    /**
+     * Take this loop's snapshot from a sample the odometry thread already made.
+     *
+     * @param timestamp FPGA time in seconds the sample was taken
+     */
+    public void update(double timestamp, double yawDegrees, double yawRateDegreesPerSecond) {
+        this.timestamp = timestamp;
+        this.yawDegrees = yawDegrees;
+        this.yawRateDegreesPerSecond = yawRateDegreesPerSecond;
+        rotation = Rotation2d.fromDegrees(yawDegrees);
+    }
+
+    public void zeroYaw() {
+        navx.zeroYaw();
+        simYawDegrees = 0;
+        update(RobotController.getFPGATime() / 1e6, 0.0, yawRateDegreesPerSecond);
+    }
+
+    public Rotation2d getRotation() {
+        return rotation;
+    }
+
+    public double getYawDegrees() {
+        return yawDegrees;
+    }
+
+    public double getYawRateRadiansPerSecond() {
+        return Math.toRadians(yawRateDegreesPerSecond);
+    }
+
+    /** FPGA time in seconds the snapshot was sampled. */
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Heading extrapolated with the yaw rate to a time, e.g. the middle of the next loop. Used for
+     * field relative driving so the robot doesn't lag its heading while spinning.
+     */
+    public double predictYawDegrees(double atTimestamp) {
+        return yawDegrees + yawRateDegreesPerSecond * (atTimestamp - timestamp);
+    }
+
+    public boolean isConnected() {
+        return simulated || navx.isConnected();
+    }
+}
@@ -0,0 +1,69 @@
+package frc.robot.subsystems.drive;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Chassis speeds to module states for the drive loop, into one array of states that is reused on every
+ * call. SwerveDriveKinematics.toSwerveModuleStates gives the same answer (including a module that isn't
+ * moving keeping its last angle) but builds matrices, an array and new states each time.
+ * <p>
+ * A module's Rotation2d is only replaced when its angle changes, so holding a command allocates
+ * nothing. Main thread only.
+ */
+public final class ModuleStateBuffer {
+
+    // Below this a module has no direction, same as SwerveDriveKinematics
+    private static final double MIN_SPEED = 1e-6;
+    private static final double ANGLE_EPSILON = 1e-9;
+
+    private final double[] moduleX;
+    private final double[] moduleY;
+    private final SwerveModuleState[] states;
+
+    public ModuleStateBuffer(Translation2d... moduleLocations) {
+        int n = moduleLocations.length;
+        moduleX = new double[n];
+        moduleY = new double[n];
+        states = new SwerveModuleState[n];
+        for (int i = 0; i < n; i++) {
+            moduleX[i] = moduleLocations[i].getX();
+            moduleY[i] = moduleLocations[i].getY();
+            states[i] = new SwerveModuleState(0.0, Rotation2d.kZero);
+        }
+    }
+
+    /**
+     * @return the module states for these speeds. The same array every call, overwritten by the next
+     * call, so don't keep it or change it.
+     */
+    public SwerveModuleState[] toSwerveModuleStates(ChassisSpeeds speeds) {
+        double vx = speeds.vxMetersPerSecond;
+        double vy = speeds.vyMetersPerSecond;
+        double omega = speeds.omegaRadiansPerSecond;
+        boolean stopped = vx == 0.0 && vy == 0.0 && omega == 0.0;
+
+        for (int i = 0; i < states.length; i++) {
+            SwerveModuleState state = states[i];
+            if (stopped) {
+                state.speedMetersPerSecond = 0.0;
+                continue;
+            }
+            double x = vx - omega * moduleY[i];
+            double y = vy + omega * moduleX[i];
+            double speed = Math.hypot(x, y);
+            state.speedMetersPerSecond = speed;
+            if (speed > MIN_SPEED) {
+                double cos = x / speed;
+                double sin = y / speed;
+                if (Math.abs(state.angle.getCos() - cos) > ANGLE_EPSILON
+                        || Math.abs(state.angle.getSin() - sin) > ANGLE_EPSILON) {
+                    state.angle = new Rotation2d(cos, sin);
+                }
+            }
+        }
+        return states;
+    }
+}
@@ -0,0 +1,106 @@
+package frc.robot.subsystems.drive;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.utils.Console;
+import frc.utils.SampleRingBuffer;
+import org.littletonrobotics.junction.AutoLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Samples odometry signals (drive positions, steer angles, gyro yaw) on its own thread, faster than
+ * the 20 ms main loop. Every pass reads all registered signals, stamps them with the FPGA time and
+ * publishes them as one frame, so the main loop can replay every sample into the pose estimator.
+ * <p>
+ * Register all signals, then call {@link #start()}. After that read frames from {@link #getSamples()}
+ * on the main thread only.
+ */
+public class OdometryThread {
+
+    /**
+     * The odometry samples drained in one loop, logged so a replay gets exactly the same samples.
+     * Module values are sample major: index {@code sample * numModules + module}.
+     */
+    @AutoLog
+    public static class OdometryInputs {
+        public double[] timestamps = new double[]{};
+        public double[] yawDegrees = new double[]{};
+        public double[] yawRateDegreesPerSecond = new double[]{};
+        public double[] drivePositionsMeters = new double[]{};
+        public double[] steerAnglesDegrees = new double[]{};
+
+        /** Resize the arrays for this many samples, reusing them when the count hasn't changed. */
+        public void setSampleCount(int samples, int numModules) {
+            if (timestamps.length != samples) {
+                timestamps = new double[samples];
+                yawDegrees = new double[samples];
+                yawRateDegreesPerSecond = new double[samples];
+            }
+            if (drivePositionsMeters.length != samples * numModules) {
+                drivePositionsMeters = new double[samples * numModules];
+                steerAnglesDegrees = new double[samples * numModules];
+            }
+        }
+    }
+
+    private final double frequency;
+    private final List<DoubleSupplier> signals = new ArrayList<>();
+    private final Notifier notifier;
+    private SampleRingBuffer samples;
+    private double[] frame;
+
+    public OdometryThread(double frequency) {
+        this.frequency = frequency;
+        notifier = new Notifier(this::sample);
+        notifier.setName("OdometryThread");
+    }
+
+    /**
+     * @return the channel this signal is stored in
+     */
+    public int registerSignal(DoubleSupplier signal) {
+        if (samples != null) {
+            throw new IllegalStateException("Odometry signals must be registered before the thread is started");
+        }
+        signals.add(signal);
+        return signals.size() - 1;
+    }
+
+    public void start() {
+        if (samples != null) {
+            return;
+        }
+        // Half a second of samples, so a slow main loop (or a breakpoint) doesn't lose data right away
+        samples = new SampleRingBuffer((int) Math.ceil(frequency / 2.0), signals.size());
+        frame = new double[signals.size()];
+        notifier.startPeriodic(1.0 / frequency);
+        console("started at " + frequency + " Hz with " + signals.size() + " signals");
+    }
+
+    public void stop() {
+        notifier.stop();
+    }
+
+    public double getFrequency() {
+        return frequency;
+    }
+
+    public SampleRingBuffer getSamples() {
+        return samples;
+    }
+
+    private void sample() {
+        double timestamp = RobotController.getFPGATime() / 1e6;
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = signals.get(i).getAsDouble();
+        }
+        samples.offer(timestamp, frame);
+    }
+
+    private void console(String message) {
+        Console.println("OdometryThread: " + message);
+    }
+}
@@ -0,0 +1,185 @@
+package frc.robot.subsystems.drive;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+
+import java.util.Optional;
+
+/**
+ * The last few seconds of robot pose and module positions, so callers can ask where the robot was
+ * when something was measured (vision latency, shooter aiming, replay) instead of where it is now.
+ * <p>
+ * Storage is preallocated and adding a sample never allocates; once full the oldest sample is
+ * overwritten. Lookups binary search the timestamps and interpolate linearly between the two
+ * samples around the requested time. Times outside the history clamp to the oldest / newest sample,
+ * the same as WPILib's TimeInterpolatableBuffer.
+ * <p>
+ * Not thread safe; use from the main loop only.
+ */
+public class PoseHistory {
+
+    private final int mask;
+    private final int numModules;
+    private final double[] timestamps;
+    private final double[] x;
+    private final double[] y;
+    private final double[] theta;
+    private final double[] moduleDistance;
+    private final double[] moduleAngle;
+    private int oldest = 0;
+    private int size = 0;
+
+    // Result of the last locate(): logical index of the sample at or before the requested time,
+    // and how far (0..1) the requested time is towards the next sample
+    private int foundIndex;
+    private double foundFraction;
+
+    /**
+     * @param minCapacity samples to keep, rounded up to a power of two
+     * @param numModules  module positions stored with each pose
+     */
+    public PoseHistory(int minCapacity, int numModules) {
+        int capacity = Integer.highestOneBit(Math.max(1, minCapacity - 1)) << 1;
+        mask = capacity - 1;
+        this.numModules = numModules;
+        timestamps = new double[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        theta = new double[capacity];
+        moduleDistance = new double[capacity * numModules];
+        moduleAngle = new double[capacity * numModules];
+    }
+
+    /**
+     * Record a sample. Samples must arrive in time order; one that is not newer than the newest
+     * sample already stored is ignored.
+     */
+    public void addSample(double timestamp, Pose2d pose, SwerveModulePosition[] positions) {
+        if (size > 0 && timestamp <= timestamps[physical(size - 1)]) {
+            return;
+        }
+
+        int slot;
+        if (size <= mask) {
+            slot = physical(size);
+            size++;
+        } else {
+            slot = oldest;
+            oldest = (oldest + 1) & mask;
+        }
+
+        timestamps[slot] = timestamp;
+        x[slot] = pose.getX();
+        y[slot] = pose.getY();
+        theta[slot] = pose.getRotation().getRadians();
+        for (int m = 0; m < numModules; m++) {
+            moduleDistance[slot * numModules + m] = positions[m].distanceMeters;
+            moduleAngle[slot * numModules + m] = positions[m].angle.getRadians();
+        }
+    }
+
+    public void clear() {
+        oldest = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /** Timestamp of the oldest sample, or NaN if there are none. */
+    public double getOldestTimestamp() {
+        return size == 0 ? Double.NaN : timestamps[physical(0)];
+    }
+
+    /** Timestamp of the newest sample, or NaN if there are none. */
+    public double getNewestTimestamp() {
+        return size == 0 ? Double.NaN : timestamps[physical(size - 1)];
+    }
+
+    /**
+     * @param timestamp FPGA time in seconds
+     * @return the interpolated pose at that time, or empty if there is no history yet
+     */
+    public Optional<Pose2d> getPoseAt(double timestamp) {
+        if (!locate(timestamp)) {
+            return Optional.empty();
+        }
+        int a = physical(foundIndex);
+        int b = physical(Math.min(foundIndex + 1, size - 1));
+        double t = foundFraction;
+        return Optional.of(new Pose2d(
+                MathUtil.interpolate(x[a], x[b], t),
+                MathUtil.interpolate(y[a], y[b], t),
+                new Rotation2d(interpolateAngle(theta[a], theta[b], t))));
+    }
+
+    /**
+     * Fills {@code out} with the interpolated module positions at a time. Only the existing
+     * SwerveModulePosition objects are updated, so this does not allocate beyond the angles.
+     *
+     * @return false (and leaves {@code out} alone) if there is no history yet
+     */
+    public boolean getModulePositionsAt(double timestamp, SwerveModulePosition[] out) {
+        if (!locate(timestamp)) {
+            return false;
+        }
+        int a = physical(foundIndex) * numModules;
+        int b = physical(Math.min(foundIndex + 1, size - 1)) * numModules;
+        double t = foundFraction;
+        for (int m = 0; m < numModules; m++) {
+            out[m].distanceMeters = MathUtil.interpolate(moduleDistance[a + m], moduleDistance[b + m], t);
+            out[m].angle = new Rotation2d(interpolateAngle(moduleAngle[a + m], moduleAngle[b + m], t));
+        }
+        return true;
+    }
+
+    private boolean locate(double timestamp) {
+        if (size == 0) {
+            return false;
+        }
+        if (timestamp <= timestamps[physical(0)]) {
+            foundIndex = 0;
+            foundFraction = 0.0;
+            return true;
+        }
+        if (timestamp >= timestamps[physical(size - 1)]) {
+            foundIndex = size - 1;
+            foundFraction = 0.0;
+            return true;
+        }
+
+        // Find the last sample at or before the timestamp. The checks above guarantee lo < hi.
+        int lo = 0;
+        int hi = size - 1;
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[physical(mid)] <= timestamp) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+
+        double t0 = timestamps[physical(lo)];
+        double t1 = timestamps[physical(hi)];
+        foundIndex = lo;
+        foundFraction = (timestamp - t0) / (t1 - t0);
+        return true;
+    }
+
+    private int physical(int logicalIndex) {
+        return (oldest + logicalIndex) & mask;
+    }
+
+    // Interpolate the short way around the circle
+    private static double interpolateAngle(double from, double to, double t) {
+        return from + MathUtil.angleModulus(to - from) * t;
+    }
+}
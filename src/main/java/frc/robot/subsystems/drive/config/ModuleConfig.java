@@ -31,6 +31,21 @@ public class ModuleConfig {
         return isDirty;
     }
 
+    // Meters the wheel travels per drive motor rotation
+    public double driveMetersPerRotation() {
+        double INCHES_TO_METERS = 0.0254;  // Standard conversion
+        return wheelDiameter // inches per wheel diameter
+                * INCHES_TO_METERS // convert to meters
+                * Math.PI // circumference/diameter
+                * (1.0 / driveRatio); // wheel rotations per motor rotation
+    }
+
+    // Module degrees per steer motor rotation
+    public double steerDegreesPerRotation() {
+        return 360.0 // degrees per rotation
+                * (1.0 / steerRatio); // output rotations per input rotation
+    }
+
     public static ModuleConfig from(ModuleConfig value) {
         return new ModuleConfig() {{
             name = value.name;
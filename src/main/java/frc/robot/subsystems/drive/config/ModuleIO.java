@@ -0,0 +1,75 @@
+package frc.robot.subsystems.drive.config;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import org.littletonrobotics.junction.AutoLog;
+
+/**
+ * The hardware behind one swerve module. SwerveModule reads everything it needs once per loop
+ * through {@link #updateInputs}, and AdvantageKit logs those inputs, so in AKIT_REPLAY SwerveModule
+ * sees exactly what it saw on the robot. The default methods do nothing, which is the replay IO.
+ */
+public interface ModuleIO {
+
+    @AutoLog
+    class ModuleIOInputs {
+        public double drivePositionMeters = 0.0;
+        public double driveVelocityMetersPerSecond = 0.0;
+        public double driveAppliedOutput = 0.0;
+        public double driveCurrentAmps = 0.0;
+
+        // Unwound module angle from the steer motor's encoder
+        public double steerPositionDegrees = 0.0;
+        public double steerVelocityRPM = 0.0;
+        public double steerAppliedOutput = 0.0;
+        public double steerCurrentAmps = 0.0;
+
+        // Raw CANcoder readings, before the module's encoder offset
+        public double canCoderPositionDegrees = 0.0;
+        public double canCoderAbsolutePositionDegrees = 0.0;
+    }
+
+    /**
+     * Phoenix signals that updateInputs reads. SwerveModuleGroup refreshes every module's signals in one
+     * call before any updateInputs, so updateInputs should use their cached values, not refresh them.
+     */
+    default BaseStatusSignal[] getStatusSignals() {
+        return new BaseStatusSignal[0];
+    }
+
+    default void updateInputs(ModuleIOInputs inputs) {
+    }
+
+    /** Open loop, -1 to 1 */
+    default void setDriveOutput(double output) {
+    }
+
+    /** Open loop, -1 to 1 */
+    default void setSteerOutput(double output) {
+    }
+
+    default void setDriveVelocity(double metersPerSecond) {
+    }
+
+    default void setSteerAngle(double degrees) {
+    }
+
+    default void configureDrivePid(PidConfig pid) {
+    }
+
+    default void configureSteerPid(PidConfig pid) {
+    }
+
+    /** Save the current gains so they survive a power cycle. Slow; call only when asked to. */
+    default void persistPids() {
+    }
+
+    /** Drive distance in meters, read now. For the odometry thread; must be thread safe. */
+    default double readDrivePosition() {
+        return 0.0;
+    }
+
+    /** Unwound steer angle in degrees, read now. For the odometry thread; must be thread safe. */
+    default double readSteerAngle() {
+        return 0.0;
+    }
+}
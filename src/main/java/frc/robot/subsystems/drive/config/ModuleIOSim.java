@@ -0,0 +1,157 @@
+package frc.robot.subsystems.drive.config;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
+import frc.robot.Constants;
+
+/**
+ * Physics for one module when running off robot: a DCMotorSim for the wheel and one for the steering,
+ * using the module's gear ratios and the drive.simDriveMOI / simSteerMOI inertias.
+ * <p>
+ * The closed loops stand in for the SparkMax onboard controllers and run at the same 1 kHz, using the
+ * same PidConfig gains (output -1 to 1, kV as velocity feedforward, steer wrapping at +/-180).
+ * A Spark's I and D terms are per 1 ms cycle, so they are scaled to WPILib's per second gains.
+ */
+public class ModuleIOSim implements ModuleIO {
+
+    private static final double CONTROLLER_PERIOD = 0.001;
+    private static final int STEPS_PER_LOOP = (int) Math.round(TimedRobot.kDefaultPeriod / CONTROLLER_PERIOD);
+
+    private final ModuleConfig config;
+    private final DCMotorSim driveSim;
+    private final DCMotorSim steerSim;
+    private final PIDController driveController = new PIDController(0, 0, 0, CONTROLLER_PERIOD);
+    private final PIDController steerController = new PIDController(0, 0, 0, CONTROLLER_PERIOD);
+    private final double wheelRadiusMeters;
+
+    private double driveKV;
+    private double driveMin = -1;
+    private double driveMax = 1;
+    private double steerMin = -1;
+    private double steerMax = 1;
+
+    private boolean driveClosedLoop = false;
+    private boolean steerClosedLoop = false;
+    private double driveSetpoint = 0.0;
+    private double steerSetpoint = 0.0;
+    private double driveOutput = 0.0;
+    private double steerOutput = 0.0;
+
+    // Written on the main thread, read by the odometry thread
+    private volatile double drivePositionMeters = 0.0;
+    private volatile double steerPositionDegrees = 0.0;
+
+    public ModuleIOSim(ModuleConfig moduleConfig, PidConfig dPid, PidConfig sPid) {
+        config = moduleConfig;
+        wheelRadiusMeters = config.driveMetersPerRotation() * config.driveRatio / (2.0 * Math.PI);
+
+        DCMotor neo = DCMotor.getNEO(1);
+        driveSim = new DCMotorSim(
+                LinearSystemId.createDCMotorSystem(neo, Constants.Drive.simDriveMOI, config.driveRatio), neo);
+        steerSim = new DCMotorSim(
+                LinearSystemId.createDCMotorSystem(neo, Constants.Drive.simSteerMOI, config.steerRatio), neo);
+
+        steerController.enableContinuousInput(-180, 180);
+        configureDrivePid(dPid);
+        configureSteerPid(sPid);
+    }
+
+    @Override
+    public void updateInputs(ModuleIOInputs inputs) {
+        double busVoltage = RoboRioSim.getVInVoltage();
+
+        for (int i = 0; i < STEPS_PER_LOOP; i++) {
+            if (driveClosedLoop) {
+                driveOutput = MathUtil.clamp(driveKV * driveSetpoint
+                        + driveController.calculate(getDriveVelocity(), driveSetpoint), driveMin, driveMax);
+            }
+            if (steerClosedLoop) {
+                steerOutput = MathUtil.clamp(steerController.calculate(getSteerDegrees(), steerSetpoint), steerMin, steerMax);
+            }
+
+            driveSim.setInputVoltage(driveOutput * busVoltage);
+            steerSim.setInputVoltage(steerOutput * busVoltage);
+            driveSim.update(CONTROLLER_PERIOD);
+            steerSim.update(CONTROLLER_PERIOD);
+        }
+
+        drivePositionMeters = driveSim.getAngularPositionRad() * wheelRadiusMeters;
+        steerPositionDegrees = getSteerDegrees();
+
+        inputs.drivePositionMeters = drivePositionMeters;
+        inputs.driveVelocityMetersPerSecond = getDriveVelocity();
+        inputs.driveAppliedOutput = driveOutput;
+        inputs.driveCurrentAmps = Math.abs(driveSim.getCurrentDrawAmps());
+
+        inputs.steerPositionDegrees = steerPositionDegrees;
+        inputs.steerVelocityRPM = steerSim.getAngularVelocityRPM() * config.steerRatio;
+        inputs.steerAppliedOutput = steerOutput;
+        inputs.steerCurrentAmps = Math.abs(steerSim.getCurrentDrawAmps());
+
+        // The CANcoder reads the raw magnet, so add back the offset SwerveModule subtracts
+        inputs.canCoderPositionDegrees = steerPositionDegrees + config.encoderOffset;
+        inputs.canCoderAbsolutePositionDegrees = SwerveModule.normalizeDegrees(inputs.canCoderPositionDegrees);
+    }
+
+    @Override
+    public void setDriveOutput(double output) {
+        driveClosedLoop = false;
+        driveOutput = MathUtil.clamp(output, -1, 1);
+    }
+
+    @Override
+    public void setSteerOutput(double output) {
+        steerClosedLoop = false;
+        steerOutput = MathUtil.clamp(output, -1, 1);
+    }
+
+    @Override
+    public void setDriveVelocity(double metersPerSecond) {
+        driveClosedLoop = true;
+        driveSetpoint = metersPerSecond;
+    }
+
+    @Override
+    public void setSteerAngle(double degrees) {
+        steerClosedLoop = true;
+        steerSetpoint = degrees;
+    }
+
+    @Override
+    public void configureDrivePid(PidConfig pid) {
+        driveController.setPID(pid.kP, pid.kI / CONTROLLER_PERIOD, pid.kD * CONTROLLER_PERIOD);
+        driveKV = pid.kV;
+        driveMin = pid.kMin;
+        driveMax = pid.kMax;
+    }
+
+    @Override
+    public void configureSteerPid(PidConfig pid) {
+        steerController.setPID(pid.kP, pid.kI / CONTROLLER_PERIOD, pid.kD * CONTROLLER_PERIOD);
+        steerMin = pid.kMin;
+        steerMax = pid.kMax;
+    }
+
+    @Override
+    public double readDrivePosition() {
+        return drivePositionMeters;
+    }
+
+    @Override
+    public double readSteerAngle() {
+        return steerPositionDegrees;
+    }
+
+    private double getDriveVelocity() {
+        return driveSim.getAngularVelocityRadPerSec() * wheelRadiusMeters;
+    }
+
+    private double getSteerDegrees() {
+        return Math.toDegrees(steerSim.getAngularPositionRad());
+    }
+}
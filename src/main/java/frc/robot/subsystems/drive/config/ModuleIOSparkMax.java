@@ -0,0 +1,253 @@
+package frc.robot.subsystems.drive.config;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.configs.CANcoderConfiguration;
+import com.ctre.phoenix6.hardware.CANcoder;
+import com.revrobotics.REVLibError;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.spark.SparkBase;
+import com.revrobotics.spark.SparkMax;
+import com.revrobotics.spark.config.EncoderConfig;
+import com.revrobotics.spark.config.SparkMaxConfig;
+import edu.wpi.first.units.measure.Angle;
+import frc.robot.Constants;
+import frc.utils.Console;
+import frc.utils.motorcontrol.DeviceConfigWorker;
+import frc.utils.motorcontrol.SparkOutput;
+import frc.utils.motorcontrol.StartupConfigurator;
+import frc.utils.motorcontrol.StatusFrameManager;
+import frc.utils.motorcontrol.StatusFrameManager.SparkSignals;
+
+import java.util.concurrent.CompletableFuture;
+
+import static edu.wpi.first.units.Units.Degrees;
+
+/**
+ * A SDS style module: SparkMax + NEO for drive and steer, CANcoder for absolute steer angle.
+ * The steer SparkMax runs the position loop on its own encoder, seeded from the CANcoder at startup.
+ */
+public class ModuleIOSparkMax implements ModuleIO {
+
+    private final ModuleConfig config;
+    private final CANcoder steerCANCoder;
+    private final StatusSignal<Angle> canCoderPosition;
+    private final StatusSignal<Angle> canCoderAbsolutePosition;
+    private final SparkMax driveMotor;
+    private final SparkMax steerMotor;
+    private final RelativeEncoder driveEncoder;
+    private final RelativeEncoder steerEncoder;
+    private final SparkOutput steerOutput;
+    private final SparkOutput driveOutput;
+
+    public ModuleIOSparkMax(ModuleConfig moduleConfig, PidConfig dPid, PidConfig sPid) {
+        config = moduleConfig;
+
+        // Every device is configured on the startup threads; RobotContainer waits for them all
+        StartupConfigurator configurator = StartupConfigurator.getInstance();
+
+        // CANCoder
+        steerCANCoder = new CANcoder(config.encoderID);
+        canCoderPosition = steerCANCoder.getPosition(false);
+        canCoderAbsolutePosition = steerCANCoder.getAbsolutePosition(false);
+
+        CompletableFuture<Boolean> canCoderReady = configurator.submit("Mod " + config.name + " CANcoder", () -> {
+            // Zero the magnetic offset to ensure we obliterate any prior stored values and read raw values
+            CANcoderConfiguration canCoderConfig = new CANcoderConfiguration();
+            canCoderConfig.MagnetSensor.MagnetOffset = 0.0;
+            StatusCode status = steerCANCoder.getConfigurator().apply(canCoderConfig, 0.050);
+            if (!status.isOK()) {
+                console("Failed to configure CANcoder " + config.encoderID + " magnetic offset: " + status.toString());
+                return false;
+            }
+
+            // Only the two angles are read, once per loop
+            StatusFrameManager.getInstance().apply(steerCANCoder, "Mod " + config.name + " CANcoder",
+                    Constants.CanBus.canCoderFrequency, canCoderPosition, canCoderAbsolutePosition);
+            return true;
+        });
+
+        // MOTORS
+        SparkMaxConfig globalConfig = new SparkMaxConfig();
+
+        globalConfig.smartCurrentLimit(Constants.SparkConstants.CurrentLimit).voltageCompensation(Constants.SparkConstants.NominalVoltage);
+
+        // MOTORS: DRIVE MOTOR
+        driveMotor = new SparkMax(config.driveID, SparkBase.MotorType.kBrushless);
+        SparkMaxConfig driveConfig = new SparkMaxConfig();
+        EncoderConfig driveEncoderConfig = new EncoderConfig();
+
+        driveConfig.apply(globalConfig).openLoopRampRate(Constants.Drive.driveOpenLoopRampRate).inverted(config.driveInverted);
+
+        driveEncoderConfig.velocityConversionFactor(config.driveMetersPerRotation() / 60.0);
+        driveEncoderConfig.positionConversionFactor(config.driveMetersPerRotation());
+
+        driveConfig.apply(driveEncoderConfig);
+        // The odometry thread reads position faster than the main loop; the rest of updateInputs once a loop
+        StatusFrameManager.getInstance().apply(driveConfig, "Mod " + config.name + " drive", moduleSignals());
+
+        driveConfig.closedLoop
+                .p(dPid.kP).i(dPid.kI).d(dPid.kD)
+                .velocityFF(dPid.kV).outputRange(dPid.kMin, dPid.kMax);
+
+        configurator.configure("Mod " + config.name + " drive", driveMotor, driveConfig,
+                SparkBase.ResetMode.kResetSafeParameters, SparkBase.PersistMode.kPersistParameters);
+
+        driveOutput = new SparkOutput(driveMotor);
+        driveEncoder = driveMotor.getEncoder();
+        // /MOTORS: DRIVE MOTOR
+
+        // MOTORS: STEER MOTOR
+        steerMotor = new SparkMax(config.steerID, SparkBase.MotorType.kBrushless);
+        SparkMaxConfig steerConfig = new SparkMaxConfig();
+        EncoderConfig steerEncoderConfig = new EncoderConfig();
+
+        steerConfig.apply(globalConfig).openLoopRampRate(Constants.Drive.steerOpenLoopRampRate).inverted(config.steerInverted);
+
+        steerEncoderConfig.positionConversionFactor(config.steerDegreesPerRotation());
+        steerConfig.apply(steerEncoderConfig);
+        StatusFrameManager.getInstance().apply(steerConfig, "Mod " + config.name + " steer", moduleSignals());
+
+        steerConfig.closedLoop
+                .p(sPid.kP).i(sPid.kI).d(sPid.kD)
+                .velocityFF(sPid.kV).outputRange(sPid.kMin, sPid.kMax)
+                .positionWrappingEnabled(true)
+                .positionWrappingInputRange(-180, 180);
+
+        CompletableFuture<Boolean> steerReady = configurator.configure("Mod " + config.name + " steer", steerMotor, steerConfig,
+                SparkBase.ResetMode.kResetSafeParameters, SparkBase.PersistMode.kPersistParameters);
+
+        steerOutput = new SparkOutput(steerMotor);
+        steerEncoder = steerMotor.getEncoder();
+
+        // The seed is in the steer encoder's converted units, so it waits for the steer config as well
+        configurator.submit("Mod " + config.name + " steer seed", () -> {
+            if (!canCoderAbsolutePosition.waitForUpdate(0.050).getStatus().isOK()) {
+                return false;
+            }
+            double degrees = canCoderAbsolutePosition.getValue().in(Degrees) - config.encoderOffset;
+            return steerEncoder.setPosition(degrees) == REVLibError.kOk;
+        }, canCoderReady, steerReady);
+
+        // /MOTORS: STEER MOTOR
+        // /MOTORS
+    }
+
+    @Override
+    public BaseStatusSignal[] getStatusSignals() {
+        return new BaseStatusSignal[]{canCoderPosition, canCoderAbsolutePosition};
+    }
+
+    @Override
+    public void updateInputs(ModuleIOInputs inputs) {
+        inputs.drivePositionMeters = driveEncoder.getPosition();
+        inputs.driveVelocityMetersPerSecond = driveEncoder.getVelocity();
+        inputs.driveAppliedOutput = driveMotor.getAppliedOutput();
+        inputs.driveCurrentAmps = driveMotor.getOutputCurrent();
+
+        inputs.steerPositionDegrees = steerEncoder.getPosition();
+        inputs.steerVelocityRPM = steerEncoder.getVelocity();
+        inputs.steerAppliedOutput = steerMotor.getAppliedOutput();
+        inputs.steerCurrentAmps = steerMotor.getOutputCurrent();
+
+        // Refreshed by SwerveModuleGroup together with the other modules
+        inputs.canCoderPositionDegrees = canCoderPosition.getValue().in(Degrees);
+        inputs.canCoderAbsolutePositionDegrees = canCoderAbsolutePosition.getValue().in(Degrees);
+    }
+
+    @Override
+    public void setDriveOutput(double output) {
+        driveOutput.set(output);
+    }
+
+    @Override
+    public void setSteerOutput(double output) {
+        steerOutput.set(output);
+    }
+
+    @Override
+    public void setDriveVelocity(double metersPerSecond) {
+        driveOutput.setReference(metersPerSecond, SparkBase.ControlType.kVelocity);
+    }
+
+    @Override
+    public void setSteerAngle(double degrees) {
+        steerOutput.setReference(degrees, SparkBase.ControlType.kPosition);
+    }
+
+    @Override
+    public void configureDrivePid(PidConfig pid) {
+        updatePidConfig(driveMotor, pid, "Drive");
+    }
+
+    @Override
+    public void configureSteerPid(PidConfig pid) {
+        updatePidConfig(steerMotor, pid, "Steer");
+    }
+
+    @Override
+    public void persistPids() {
+        persistParameters(driveMotor, "Drive");
+        persistParameters(steerMotor, "Steer");
+    }
+
+    @Override
+    public double readDrivePosition() {
+        return driveEncoder.getPosition();
+    }
+
+    @Override
+    public double readSteerAngle() {
+        return steerEncoder.getPosition();
+    }
+
+    private void updatePidConfig(SparkMax motor, PidConfig pid, String motorType) {
+        // Only the closed loop gains, built here so the worker gets a snapshot; the rest is already on the Spark
+        SparkMaxConfig pidConfig = new SparkMaxConfig();
+        pidConfig.closedLoop.p(pid.kP).i(pid.kI).d(pid.kD).velocityFF(pid.kV) // Using kV as feedforward term
+                .outputRange(pid.kMin, pid.kMax);
+        String gains = pid.toString();
+
+        // Not persisted: a flash write is slow and wears the flash, see persistPids()
+        DeviceConfigWorker.getInstance().submit(config.name + " " + motorType + " PID", () -> {
+            REVLibError error = motor.configure(pidConfig, SparkBase.ResetMode.kNoResetSafeParameters, SparkBase.PersistMode.kNoPersistParameters);
+
+            if (error == REVLibError.kOk) {
+                console(motorType + " motor configured successfully: " + gains);
+            } else {
+                console("Error configuring " + motorType + " motor: " + error.toString());
+            }
+        });
+    }
+
+    private void persistParameters(SparkMax motor, String motorType) {
+        DeviceConfigWorker.getInstance().submit(config.name + " " + motorType + " persist", () -> {
+            // An empty config changes nothing, it just saves what the Spark has now
+            REVLibError error = motor.configure(new SparkMaxConfig(), SparkBase.ResetMode.kNoResetSafeParameters, SparkBase.PersistMode.kPersistParameters);
+
+            if (error == REVLibError.kOk) {
+                console(motorType + " motor parameters saved");
+            } else {
+                console("Error saving " + motorType + " motor parameters: " + error.toString());
+            }
+        });
+    }
+
+    private static SparkSignals moduleSignals() {
+        int loop = StatusFrameManager.LOOP_PERIOD_MS;
+        return SparkSignals.unused()
+                .withPrimaryEncoderPosition(odometryPeriodMs())
+                .withPrimaryEncoderVelocity(loop)
+                .withAppliedOutput(loop)
+                .withOutputCurrent(loop);
+    }
+
+    private static int odometryPeriodMs() {
+        return (int) Math.max(1, Math.round(1000.0 / Constants.Drive.odometryFrequency));
+    }
+
+    private void console(String message) {
+        Console.println("ModuleIOSparkMax (" + config.name + "): " + message);
+    }
+}
@@ -7,6 +7,7 @@ package frc.robot.subsystems.drive.config;
 public class PidConfig {
 
     private boolean isDirty = false;
+    private boolean persistRequested = false;
     public double kP = 0;
     public double kI = 0;
     public double kD = 0;
@@ -28,6 +29,18 @@ public class PidConfig {
         return isDirty;
     }
 
+    public void requestPersist() {
+        persistRequested = true;
+    }
+
+    public void clearPersistRequest() {
+        persistRequested = false;
+    }
+
+    public boolean isPersistRequested() {
+        return persistRequested;
+    }
+
     public static PidConfig from(PidConfig value) {
         return new PidConfig() {
             {
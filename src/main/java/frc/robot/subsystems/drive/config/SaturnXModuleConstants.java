@@ -2,6 +2,9 @@ package frc.robot.subsystems.drive.config;
 
 import edu.wpi.first.math.geometry.Translation2d;
 import frc.robot.Constants.Drive;
+import frc.utils.configfile.StormProp;
+
+import java.util.Set;
 
 public final class SaturnXModuleConstants {
     public static final int FRONT_LEFT = 0;
@@ -95,6 +98,40 @@ public final class SaturnXModuleConstants {
                 .withDriveInverted(Drive.invertRight)
                 .withEncoderOffset(Drive.backRightEncoderOffset)
                 .withOffset(new Translation2d(-dx, -dy));
+
+        // Edited gains reach the modules the same way dashboard tuning does, through setDirty()
+        StormProp.addReloadListener(changed -> {
+            reloadPid(drivePidConfig, "drive", changed);
+            reloadPid(steerPidConfig, "steer", changed);
+        });
+    }
+
+    // Only the gains that changed in the file, so a reload doesn't undo tuning done on the dashboard
+    private static void reloadPid(PidConfig pid, String motor, Set<String> changed) {
+        boolean dirty = false;
+        if (changed.contains("drive." + motor + "KP")) {
+            pid.kP = StormProp.getNumber("drive", motor + "KP", pid.kP);
+            dirty = true;
+        }
+        if (changed.contains("drive." + motor + "KI")) {
+            pid.kI = StormProp.getNumber("drive", motor + "KI", pid.kI);
+            dirty = true;
+        }
+        if (changed.contains("drive." + motor + "KD")) {
+            pid.kD = StormProp.getNumber("drive", motor + "KD", pid.kD);
+            dirty = true;
+        }
+        if (changed.contains("drive." + motor + "KMin")) {
+            pid.kMin = StormProp.getNumber("drive", motor + "KMin", pid.kMin);
+            dirty = true;
+        }
+        if (changed.contains("drive." + motor + "KMax")) {
+            pid.kMax = StormProp.getNumber("drive", motor + "KMax", pid.kMax);
+            dirty = true;
+        }
+        if (dirty) {
+            pid.setDirty();
+        }
     }
 
     private SaturnXModuleConstants() {
@@ -1,11 +1,21 @@
 package frc.robot.subsystems.drive.config;
 
-import com.ctre.phoenix6.hardware.CANcoder;
-import com.revrobotics.spark.SparkMax;
-
+import com.ctre.phoenix6.BaseStatusSignal;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.units.measure.AngularVelocity;
 import edu.wpi.first.units.measure.LinearVelocity;
+import frc.robot.Constants.Drive;
+import frc.robot.RobotState;
+import frc.utils.Console;
+import frc.utils.swerve.ModuleLimits;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import static edu.wpi.first.units.Units.MetersPerSecond;
 import static edu.wpi.first.units.Units.RadiansPerSecond;
 
@@ -19,11 +29,11 @@ public class SwerveModuleGroup {
     final int NUM_MODULES = SaturnXModuleConstants.NUM_MODULES;
 
     final SwerveModule[] swerveModules;
-    final SparkMax[] driveArray;
-    final SparkMax[] steerArray;
-    final CANcoder[] encoderArray;
     final PidConfig drivePidConfig;
     final PidConfig steerPidConfig;
+    final SwerveModuleState[] measuredStates;
+    // Every module's CANcoder signals, refreshed together so all four angles come from the same moment
+    final BaseStatusSignal[] statusSignals;
 
     public SwerveModuleGroup() {
         ModuleConfig[] moduleConfigs = SaturnXModuleConstants.getOrderedModuleConfigs();
@@ -40,19 +50,45 @@ public class SwerveModuleGroup {
                     steerPidConfig);
         }
 
-        driveArray = new SparkMax[NUM_MODULES];
-        steerArray = new SparkMax[NUM_MODULES];
-        encoderArray = new CANcoder[NUM_MODULES];
+        List<BaseStatusSignal> signals = new ArrayList<>();
+        for (SwerveModule module : swerveModules) {
+            Collections.addAll(signals, module.getStatusSignals());
+        }
+        statusSignals = signals.toArray(new BaseStatusSignal[0]);
+
+        measuredStates = new SwerveModuleState[NUM_MODULES];
+        for (int i = 0; i < NUM_MODULES; i++) {
+            measuredStates[i] = new SwerveModuleState();
+        }
+    }
 
-        // Initialize arrays in module order
+    public boolean isSimulated() {
+        return RobotState.getInstance().isPhysicsSim();
+    }
+
+    /**
+     * The speed and angle each module measured this loop. The array is reused on every call.
+     */
+    public SwerveModuleState[] getMeasuredStates() {
         for (int i = 0; i < NUM_MODULES; i++) {
-            driveArray[i] = swerveModules[i].driveMotor;
-            steerArray[i] = swerveModules[i].steerMotor;
-            encoderArray[i] = swerveModules[i].steerCANCoder;
+            measuredStates[i].speedMetersPerSecond = swerveModules[i].getDriveVelocity();
+            measuredStates[i].angle = Rotation2d.fromDegrees(swerveModules[i].getSteerAngle());
+        }
+        return measuredStates;
+    }
+
+    /**
+     * Fetch every module's Phoenix signals in one call. periodic() does this before updating the
+     * modules; call it yourself before SwerveModule.updateInputs() if you don't call periodic().
+     */
+    public void refreshSignals() {
+        if (statusSignals.length > 0) {
+            Logger.recordOutput("Drive/canCodersOK", BaseStatusSignal.refreshAll(statusSignals).isOK());
         }
     }
 
     public void periodic() {
+        refreshSignals();
         for (SwerveModule module : swerveModules) {
             module.periodic();
         }
@@ -61,13 +97,16 @@ public class SwerveModuleGroup {
         // We need all the modules to see the dirty setting, so here we mark that as done
         if (drivePidConfig.isDirty()) {
             drivePidConfig.clearDirty();
-            System.out.println(drivePidConfig);
+            Console.println(drivePidConfig);
         }
 
         if (steerPidConfig.isDirty()) {
             steerPidConfig.clearDirty();
-            System.out.println(steerPidConfig);
+            Console.println(steerPidConfig);
         }
+
+        drivePidConfig.clearPersistRequest();
+        steerPidConfig.clearPersistRequest();
     }
 
     public Translation2d[] getModuleTranslations() {
@@ -79,18 +118,6 @@ public class SwerveModuleGroup {
         };
     }
 
-    public SparkMax[] getDriveMotors() {
-        return driveArray;
-    }
-
-    public SparkMax[] getSteerMotors() {
-        return steerArray;
-    }
-
-    public CANcoder[] getEncoders() {
-        return encoderArray;
-    }
-
     public SwerveModule[] getModules() {
         return swerveModules;
     }
@@ -116,7 +143,15 @@ public class SwerveModuleGroup {
         return RadiansPerSecond.of(maxRadiansPerSecond);
     }
 
-    public void setSwerveModuleStates(edu.wpi.first.math.kinematics.SwerveModuleState[] states) {
+    public ModuleLimits getModuleLimits() {
+        // The drive velocity limit is the same one the rest of the drive uses; acceleration and steering rate
+        // are properties of the carpet and the steer motors, so they come from the config file
+        return new ModuleLimits(getMaxLinearVelocity().in(MetersPerSecond),
+                Drive.maxDriveAcceleration,
+                Drive.maxSteeringVelocity);
+    }
+
+    public void setSwerveModuleStates(SwerveModuleState[] states) {
         if (states.length != NUM_MODULES) {
             throw new IllegalArgumentException("Number of module states must match number of modules");
         }
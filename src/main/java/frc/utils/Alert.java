@@ -62,7 +62,7 @@ public class Alert {
                     DriverStation.reportWarning(text, false);
                     break;
                 case INFO:
-                    System.out.println(text);
+                    Console.println(text);
                     break;
             }
         }
@@ -82,7 +82,7 @@ public class Alert {
                     DriverStation.reportWarning(text, false);
                     break;
                 case INFO:
-                    System.out.println(text);
+                    Console.println(text);
                     break;
             }
         }
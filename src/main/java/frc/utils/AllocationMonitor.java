@@ -0,0 +1,100 @@
+package frc.utils;
+
+import frc.robot.Constants.Memory;
+import frc.utils.Alert.AlertType;
+import org.littletonrobotics.junction.Logger;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * How much the robot thread allocates, and what the garbage collector costs us. Allocation is what
+ * eventually makes GC pause the loop, so a jump in bytes per loop is an early warning.
+ * <p>
+ * Call {@link #periodic()} once per loop from the robot thread. Every loop it logs the bytes that
+ * thread allocated; once a second it logs GC counts and times (from the collector beans, so "time" is
+ * total collection time, which for the stop-the-world collectors is pause time) and the heap in use.
+ * An alert is raised while the average allocation over that second is over
+ * memory.allocationBudgetBytesPerLoop.
+ */
+public final class AllocationMonitor {
+
+    // Once a second at 50 Hz
+    private static final int SUMMARY_EVERY = 50;
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final boolean supported;
+    private final GarbageCollectorMXBean[] collectors;
+    private final Alert overBudget = new Alert("Allocation over budget", AlertType.WARNING);
+
+    // -1 until the first loop, so startup allocation isn't counted against the first loop
+    private long lastAllocated = -1;
+    private long allocatedThisSecond = 0;
+    private int loops = 0;
+    private long lastGcCount = 0;
+    private long lastGcTimeMs = 0;
+    private boolean overBudgetActive = false;
+
+    /** Create on the robot thread. */
+    public AllocationMonitor() {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        supported = threads.isThreadAllocatedMemorySupported();
+        if (supported && !threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        if (!supported) {
+            Console.println("AllocationMonitor: this JVM can't measure thread allocation, only GC is reported");
+        }
+
+        List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        collectors = beans.toArray(new GarbageCollectorMXBean[0]);
+    }
+
+    public void periodic() {
+        if (supported) {
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            long bytes = lastAllocated < 0 ? 0 : allocated - lastAllocated;
+            lastAllocated = allocated;
+            allocatedThisSecond += bytes;
+            Logger.recordOutput("Memory/bytesPerLoop", bytes);
+        }
+
+        if (++loops % SUMMARY_EVERY == 0) {
+            summary();
+        }
+    }
+
+    private void summary() {
+        long gcCount = 0;
+        long gcTimeMs = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            // -1 if this collector doesn't report it
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcTimeMs += Math.max(0, collector.getCollectionTime());
+        }
+        Logger.recordOutput("Memory/gcCount", gcCount - lastGcCount);
+        Logger.recordOutput("Memory/gcTimeMs", gcTimeMs - lastGcTimeMs);
+        Logger.recordOutput("Memory/gcCountTotal", gcCount);
+        Logger.recordOutput("Memory/gcTimeMsTotal", gcTimeMs);
+        lastGcCount = gcCount;
+        lastGcTimeMs = gcTimeMs;
+
+        Runtime runtime = Runtime.getRuntime();
+        Logger.recordOutput("Memory/heapUsedBytes", runtime.totalMemory() - runtime.freeMemory());
+
+        if (supported) {
+            double average = (double) allocatedThisSecond / SUMMARY_EVERY;
+            Logger.recordOutput("Memory/averageBytesPerLoop", average);
+            boolean over = average > Memory.allocationBudgetBytesPerLoop;
+            if (over && !overBudgetActive) {
+                // Set before activating, so the driver station gets one report rather than one per second
+                overBudget.setText(String.format("Robot thread allocating %.0f KB per loop (budget %.0f KB)",
+                        average / 1024.0, Memory.allocationBudgetBytesPerLoop / 1024.0));
+            }
+            overBudget.set(over);
+            overBudgetActive = over;
+            allocatedThisSecond = 0;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package frc.utils;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Console output that never blocks the caller. On the roboRIO stdout goes to netconsole, and a
+ * println can stall the robot thread for milliseconds when the console is busy or slow. Here a println
+ * just puts the line in a ring buffer; a low priority thread wakes every 10 ms and writes it out.
+ * <p>
+ * The ring is a preallocated array of {@link #CAPACITY} lines. Any thread can add a line: it claims the
+ * next index with a compare and set, then stores the line there. So println takes no lock and
+ * allocates nothing. When the ring is full new lines are dropped and counted, and the count is printed
+ * once there is room again. Anything still queued is written when the JVM exits.
+ * <p>
+ * Use {@link Site} to rate limit a message that can fire every loop.
+ */
+public final class Console {
+
+    // A power of two, so an index is a mask
+    public static final int CAPACITY = 4096;
+    private static final int MASK = CAPACITY - 1;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(String[].class);
+
+    // A slot is null until the line claimed for it is stored, and again once it's written out
+    private static final String[] ring = new String[CAPACITY];
+    // Next index to claim, any thread
+    private static final AtomicLong tail = new AtomicLong();
+    // Next index to write out; only the writer moves it
+    private static volatile long head = 0;
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final PrintStream out = System.out;
+    private static volatile Thread writer;
+    // Writer side only
+    private static long lastReportedDrops = 0;
+
+    private Console() {
+    }
+
+    /** Queue a line for stdout. Safe from any thread. */
+    public static void println(String message) {
+        startWriter();
+        long index;
+        do {
+            index = tail.get();
+            if (index - head >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(index, index + 1));
+        SLOT.setRelease(ring, (int) index & MASK, message == null ? "null" : message);
+    }
+
+    /** Lines dropped because the queue was full, since startup. */
+    public static long getDropped() {
+        return dropped.get();
+    }
+
+    /** Write out everything queued so far, on the calling thread. */
+    public static synchronized void flush() {
+        long index = head;
+        while (index < tail.get()) {
+            int slot = (int) index & MASK;
+            String line = (String) SLOT.getAcquire(ring, slot);
+            if (line == null) {
+                // Claimed but not stored yet; it goes out next time
+                break;
+            }
+            // Free the slot before moving head past it, so a new line can't be overwritten
+            SLOT.setRelease(ring, slot, null);
+            index++;
+            head = index;
+            out.println(line);
+        }
+        long lost = dropped.get();
+        if (lost > lastReportedDrops) {
+            out.println("Console: " + (lost - lastReportedDrops) + " lines dropped");
+            lastReportedDrops = lost;
+        }
+    }
+
+    private static void startWriter() {
+        if (writer != null) {
+            return;
+        }
+        synchronized (Console.class) {
+            if (writer != null) {
+                return;
+            }
+            Thread thread = new Thread(Console::drain, "Console");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            Runtime.getRuntime().addShutdownHook(new Thread(Console::flush, "Console flush"));
+            writer = thread;
+            thread.start();
+        }
+    }
+
+    private static void drain() {
+        while (true) {
+            flush();
+            LockSupport.parkNanos(IDLE_WAIT_NANOS);
+        }
+    }
+
+    /**
+     * One place in the code that prints, limited to one line per interval. Lines in between are
+     * counted and the count goes out with the next line that prints.
+     */
+    public static final class Site {
+        private final long intervalNanos;
+        private long lastNanos;
+        private int suppressed = 0;
+
+        public Site(double intervalSeconds) {
+            intervalNanos = (long) (intervalSeconds * 1e9);
+            lastNanos = System.nanoTime() - intervalNanos;
+        }
+
+        public void println(String message) {
+            long now = System.nanoTime();
+            if (now - lastNanos < intervalNanos) {
+                suppressed++;
+                return;
+            }
+            lastNanos = now;
+            if (suppressed > 0) {
+                message += " (" + suppressed + " similar suppressed)";
+                suppressed = 0;
+            }
+            Console.println(message);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package frc.utils;
+
+import org.littletonrobotics.junction.Logger;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-bucket histogram of times in ms, for percentiles that would otherwise need every sample kept
+ * and sorted. Buckets are {@link #BUCKET_MS} wide up to {@link #MAX_MS}; anything slower lands in one
+ * overflow bucket (the exact max is still kept). Percentiles are the top of their bucket, so they are
+ * at most one bucket high.
+ * <p>
+ * Nothing is allocated after construction.
+ */
+public final class LatencyHistogram {
+
+    public static final double BUCKET_MS = 0.1;
+    public static final double MAX_MS = 100.0;
+    private static final int BUCKETS = (int) Math.round(MAX_MS / BUCKET_MS);
+
+    private final long[] counts = new long[BUCKETS + 1];
+    private final String p50Key;
+    private final String p95Key;
+    private final String p99Key;
+    private final String maxKey;
+    private final String countKey;
+    private long count = 0;
+    private double maxMs = 0;
+
+    /**
+     * @param name logged as name/p50, name/p95, ...
+     */
+    public LatencyHistogram(String name) {
+        p50Key = name + "/p50";
+        p95Key = name + "/p95";
+        p99Key = name + "/p99";
+        maxKey = name + "/max";
+        countKey = name + "/count";
+    }
+
+    public void record(double ms) {
+        int bucket = (int) (Math.max(0.0, ms) / BUCKET_MS);
+        counts[Math.min(bucket, BUCKETS)]++;
+        count++;
+        maxMs = Math.max(maxMs, ms);
+    }
+
+    /**
+     * @param fraction 0 to 1, e.g. 0.99 for p99
+     * @return ms, or 0 with no samples
+     */
+    public double getPercentile(double fraction) {
+        if (count == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min((i + 1) * BUCKET_MS, maxMs);
+            }
+        }
+        return maxMs;
+    }
+
+    public double getMax() {
+        return maxMs;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        maxMs = 0;
+    }
+
+    public void log() {
+        Logger.recordOutput(p50Key, getPercentile(0.50));
+        Logger.recordOutput(p95Key, getPercentile(0.95));
+        Logger.recordOutput(p99Key, getPercentile(0.99));
+        Logger.recordOutput(maxKey, maxMs);
+        Logger.recordOutput(countKey, count);
+    }
+
+    /** One line, for the console. Builds a string, so not for every loop. */
+    public String summary() {
+        return String.format("n=%d p50=%.1f p95=%.1f p99=%.1f max=%.1f ms",
+                count, getPercentile(0.50), getPercentile(0.95), getPercentile(0.99), maxMs);
+    }
+}
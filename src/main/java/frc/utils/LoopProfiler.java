@@ -0,0 +1,186 @@
+package frc.utils;
+
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times each part of the robot loop, so a loop overrun can be pinned on a subsystem or command rather
+ * than just reported. StormSubsystem and StormCommand time themselves into a {@link Section}; Robot
+ * calls {@link #startLoop(double)} and {@link #endLoop()} around robotPeriodic.
+ * <p>
+ * A loop is measured start to start of robotPeriodic, because LoggedRobot does more than call
+ * robotPeriodic: the mode periodic methods (teleopPeriodic, ...), SmartDashboard updates,
+ * simulationPeriodic and AdvantageKit's logging all run in the same cycle. Whatever isn't in
+ * robotPeriodic goes to the {@link #UNTIMED} section. In a loop that's on time that includes waiting
+ * for the next one; in an overrun there is no wait, so it's the work outside robotPeriodic.
+ * <p>
+ * A loop is only complete when the next one starts, so {@link #startLoop(double)} logs the loop before:
+ * every section's time under Timing/, plus the max and p99 over the last {@link #WINDOW} loops. When
+ * that loop took longer than its period, the section that took longest in it is logged as
+ * Timing/overrunTopOffender and printed.
+ * <p>
+ * Everything is allocated when a section is created, so profiling itself doesn't make garbage.
+ * Main thread only.
+ */
+public final class LoopProfiler {
+
+    // About 10 s of loops
+    public static final int WINDOW = 500;
+    // Sorting for p99 every loop is wasted work; once a second is plenty
+    private static final int PERCENTILE_EVERY = 50;
+    // The loop timer wakes a little late now and then; that isn't an overrun
+    private static final double OVERRUN_SLACK_MS = 1.0;
+    public static final String UNTIMED = "Untimed";
+
+    /**
+     * The time one component spends in a loop. Record every call; a component that runs more than once
+     * a loop (e.g. a command's initialize and execute) adds up.
+     */
+    public static final class Section {
+        private final String name;
+        private final String loopKey;
+        private final String maxKey;
+        private final String p99Key;
+        private final double[] window = new double[WINDOW];
+        private final double[] sorted = new double[WINDOW];
+        private int samples = 0;
+        private int next = 0;
+        private long loopNanos = 0;
+        private double maxMs = 0;
+        private double p99Ms = 0;
+
+        private Section(String name) {
+            this.name = name;
+            loopKey = "Timing/" + name + "/ms";
+            maxKey = "Timing/" + name + "/maxMs";
+            p99Key = "Timing/" + name + "/p99Ms";
+        }
+
+        public void record(long nanos) {
+            loopNanos += nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        private double endLoop(boolean updatePercentile) {
+            double ms = loopNanos / 1e6;
+            loopNanos = 0;
+
+            window[next] = ms;
+            next = (next + 1) % WINDOW;
+            samples = Math.min(samples + 1, WINDOW);
+
+            maxMs = 0;
+            for (int i = 0; i < samples; i++) {
+                maxMs = Math.max(maxMs, window[i]);
+            }
+            if (updatePercentile) {
+                System.arraycopy(window, 0, sorted, 0, samples);
+                Arrays.sort(sorted, 0, samples);
+                p99Ms = sorted[(int) Math.floor(0.99 * (samples - 1))];
+            }
+
+            Logger.recordOutput(loopKey, ms);
+            Logger.recordOutput(maxKey, maxMs);
+            Logger.recordOutput(p99Key, p99Ms);
+            return ms;
+        }
+    }
+
+    private static LoopProfiler instance;
+
+    private final List<Section> sections = new ArrayList<>();
+    private final Section untimed = getSection(UNTIMED);
+    private long loopStart = 0;
+    // When the last robotPeriodic ended; 0 until there's a loop to finish
+    private long loopEnd = 0;
+    private int loops = 0;
+    private int overruns = 0;
+
+    private LoopProfiler() {
+    }
+
+    public static LoopProfiler getInstance() {
+        if (instance == null) {
+            instance = new LoopProfiler();
+        }
+        return instance;
+    }
+
+    /**
+     * The section with this name, created the first time. Instances of the same class share one.
+     */
+    public Section getSection(String name) {
+        for (Section section : sections) {
+            if (section.name.equals(name)) {
+                return section;
+            }
+        }
+        Section section = new Section(name);
+        sections.add(section);
+        return section;
+    }
+
+    /**
+     * Call first thing in robotPeriodic. Finishes and logs the previous loop.
+     *
+     * @param periodSeconds the loop period, a loop slower than this is an overrun
+     * @return whether the previous loop overran
+     */
+    public boolean startLoop(double periodSeconds) {
+        long now = System.nanoTime();
+        boolean overran = false;
+        if (loopEnd != 0) {
+            overran = finishLoop(now, periodSeconds);
+        }
+        loopStart = now;
+        return overran;
+    }
+
+    /**
+     * Call last thing in robotPeriodic.
+     *
+     * @return how long robotPeriodic took, ms
+     */
+    public double endLoop() {
+        loopEnd = System.nanoTime();
+        double periodicMs = (loopEnd - loopStart) / 1e6;
+        Logger.recordOutput("Timing/robotPeriodicMs", periodicMs);
+        return periodicMs;
+    }
+
+    private boolean finishLoop(long now, double periodSeconds) {
+        double loopMs = (now - loopStart) / 1e6;
+        untimed.record(now - loopEnd);
+        boolean updatePercentile = loops++ % PERCENTILE_EVERY == 0;
+
+        Section worst = null;
+        double worstMs = -1;
+        for (Section section : sections) {
+            double ms = section.endLoop(updatePercentile);
+            if (ms > worstMs) {
+                worst = section;
+                worstMs = ms;
+            }
+        }
+
+        Logger.recordOutput("Timing/loopMs", loopMs);
+        boolean overran = loopMs > periodSeconds * 1000.0 + OVERRUN_SLACK_MS;
+        if (overran) {
+            overruns++;
+            Logger.recordOutput("Timing/overrunTopOffender", worst.name);
+            console(String.format("loop overrun %.1f ms, slowest was %s at %.1f ms", loopMs, worst.name, worstMs));
+        }
+        Logger.recordOutput("Timing/overruns", overruns);
+        return overran;
+    }
+
+    private void console(String message) {
+        Console.println("LoopProfiler: " + message);
+    }
+}
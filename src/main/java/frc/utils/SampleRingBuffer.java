@@ -0,0 +1,88 @@
+package frc.utils;
+
+/**
+ * Fixed size ring of timestamped samples shared between exactly one producer thread and one
+ * consumer thread, without locks. Each entry (a "frame") is a timestamp plus a fixed number of
+ * double channels, so everything sampled in one pass stays together.
+ * <p>
+ * The producer fills a slot and then publishes it by advancing the write index; the consumer reads
+ * published frames in place and then releases them with {@link #consume(int)}. When the ring is
+ * full the newest frame is dropped (and counted) rather than overwriting frames the consumer may
+ * be reading.
+ */
+public class SampleRingBuffer {
+    private final int mask;
+    private final int channels;
+    private final double[] timestamps;
+    private final double[] values;
+
+    // Each index is written by only one side. volatile makes the frame data written before
+    // an index update visible to the other thread.
+    private volatile long writeIndex = 0;
+    private volatile long readIndex = 0;
+    private volatile long dropped = 0;
+
+    /**
+     * @param minCapacity frames to hold, rounded up to a power of two
+     * @param channels    values per frame
+     */
+    public SampleRingBuffer(int minCapacity, int channels) {
+        int capacity = Integer.highestOneBit(Math.max(1, minCapacity - 1)) << 1;
+        mask = capacity - 1;
+        this.channels = channels;
+        timestamps = new double[capacity];
+        values = new double[capacity * channels];
+    }
+
+    /**
+     * Producer side. Copies one frame into the ring.
+     *
+     * @return false if the ring was full and the frame was dropped
+     */
+    public boolean offer(double timestamp, double[] frame) {
+        long write = writeIndex;
+        if (write - readIndex > mask) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) write & mask;
+        timestamps[slot] = timestamp;
+        System.arraycopy(frame, 0, values, slot * channels, channels);
+        writeIndex = write + 1;
+        return true;
+    }
+
+    /**
+     * Consumer side. Number of frames published and not yet consumed. Frames {@code 0 .. n-1}
+     * can be read with {@link #timestamp(int)} and {@link #value(int, int)} until they are consumed.
+     */
+    public int available() {
+        return (int) (writeIndex - readIndex);
+    }
+
+    public double timestamp(int frame) {
+        return timestamps[(int) (readIndex + frame) & mask];
+    }
+
+    public double value(int frame, int channel) {
+        return values[((int) (readIndex + frame) & mask) * channels + channel];
+    }
+
+    /** Consumer side. Releases the oldest {@code count} frames back to the producer. */
+    public void consume(int count) {
+        readIndex += Math.min(count, available());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public int channels() {
+        return channels;
+    }
+
+    /** Frames dropped because the consumer fell behind, since construction. */
+    public long dropped() {
+        return dropped;
+    }
+}
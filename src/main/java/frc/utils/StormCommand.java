@@ -7,31 +7,55 @@ import edu.wpi.first.wpilibj2.command.Subsystem;
 public class StormCommand extends Command {
     protected String _name = "StormCommand";
     protected int _count = 0;
+    private final LoopProfiler.Section timing;
 
     public StormCommand() {
         _name = getClass().getName();
         _name = _name.substring(_name.lastIndexOf('.') + 1);
+        timing = LoopProfiler.getInstance().getSection(_name);
         console("created");
     }
 
+    // initialize, execute and end are timed for the LoopProfiler; commands override the storm* methods
+
     @Override
-    public void initialize() {
+    public final void initialize() {
+        long start = System.nanoTime();
         // we want printing to alway happen on the first iteration. So
         _count = -1;
         console("initialized");
+        stormInitialize();
+        timing.record(System.nanoTime() - start);
     }
 
-    @Override public void execute() {
+    @Override
+    public final void execute() {
+        long start = System.nanoTime();
         _count++;
         console("running",500);
+        stormExecute();
+        timing.record(System.nanoTime() - start);
     }
+
     @Override
-    public void end(boolean interrupted) {
+    public final void end(boolean interrupted) {
+        long start = System.nanoTime();
+        stormEnd(interrupted);
         console("ended: interrupted = " + interrupted);
+        timing.record(System.nanoTime() - start);
+    }
+
+    protected void stormInitialize() {
+    }
+
+    protected void stormExecute() {
+    }
+
+    protected void stormEnd(boolean interrupted) {
     }
 
     public void console(String message) {
-        System.out.println(Timer.getFPGATimestamp() + ":Command " + _name + ": " + message);
+        Console.println(Timer.getFPGATimestamp() + ":Command " + _name + ": " + message);
     }
     public void console(String message, int iterations) {
         if (_count % iterations == 0) {
@@ -5,20 +5,32 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 public class StormSubsystem extends SubsystemBase {
     protected String _name = "StormSubsystem";
     protected int _count = 0;
+    private final LoopProfiler.Section timing;
 
     public StormSubsystem() {
         _name = getClass().getName();
         _name = _name.substring(_name.lastIndexOf('.') + 1);
+        timing = LoopProfiler.getInstance().getSection(_name);
         console("created");
     }
 
+    /**
+     * Times the subsystem's work for the LoopProfiler. Subsystems override {@link #stormPeriodic()}.
+     */
     @Override
-    public void periodic() {
+    public final void periodic() {
+        long start = System.nanoTime();
         _count++;
+        stormPeriodic();
+        timing.record(System.nanoTime() - start);
+    }
+
+    /** The subsystem's periodic work, called once per scheduler run. */
+    protected void stormPeriodic() {
     }
 
     public void console(String message) {
-        System.out.println("Subsystem " + _name + ": " + message);
+        Console.println("Subsystem " + _name + ": " + message);
     }
 
     public void console(String message, int iterations) {
@@ -0,0 +1,160 @@
+package frc.utils.configfile;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Every config value, merged from the property files and parsed once. Later files win, so pass them
+ * lowest priority first: config, override, sim.
+ * <p>
+ * Each key gets a slot, and the value in that slot is parsed as every type up front into primitive
+ * arrays, so looking a value up never parses or boxes. StormProp.Key remembers a key's slot.
+ * Immutable once built.
+ */
+final class ConfigSnapshot {
+
+    static final int MISSING = -1;
+
+    private static final byte NUMBER_OK = 1;
+    private static final byte INT_OK = 2;
+
+    final int version;
+    private final Map<String, Integer> slots;
+    // null when the value couldn't be used at all (no type cast, or empty)
+    private final String[] strings;
+    private final double[] numbers;
+    private final int[] ints;
+    private final boolean[] booleans;
+    private final byte[] parsed;
+    // Why a value had no usable string, for the warning
+    private final String[] errors;
+
+    private ConfigSnapshot(int version, Map<String, String> merged) {
+        this.version = version;
+        int size = merged.size();
+        slots = new HashMap<>(size * 2);
+        strings = new String[size];
+        numbers = new double[size];
+        ints = new int[size];
+        booleans = new boolean[size];
+        parsed = new byte[size];
+        errors = new String[size];
+
+        int slot = 0;
+        for (Map.Entry<String, String> entry : merged.entrySet()) {
+            slots.put(entry.getKey(), slot);
+            parse(slot, entry.getValue());
+            slot++;
+        }
+    }
+
+    /**
+     * @param layers property files, lowest priority first; null entries are skipped
+     */
+    static ConfigSnapshot build(int version, Properties... layers) {
+        Map<String, String> merged = new HashMap<>();
+        for (Properties layer : layers) {
+            if (layer != null) {
+                for (String key : layer.stringPropertyNames()) {
+                    merged.put(key, layer.getProperty(key));
+                }
+            }
+        }
+        return new ConfigSnapshot(version, merged);
+    }
+
+    private void parse(int slot, String raw) {
+        String value;
+        try {
+            value = StormProp.removeCast(raw);
+        } catch (IllegalArgumentException e) {
+            errors[slot] = e.getMessage();
+            return;
+        }
+        if (value.isEmpty()) {
+            return;
+        }
+
+        strings[slot] = value;
+        booleans[slot] = value.equalsIgnoreCase("true");
+        try {
+            numbers[slot] = Double.parseDouble(value);
+            parsed[slot] |= NUMBER_OK;
+        } catch (NumberFormatException e) {
+            // Only a problem if someone asks for a number
+        }
+        try {
+            ints[slot] = Integer.parseInt(value);
+            parsed[slot] |= INT_OK;
+        } catch (NumberFormatException e) {
+            // Likewise for an int
+        }
+    }
+
+    /** Keys whose value differs from older, including keys only one of them has. */
+    Set<String> changedSince(ConfigSnapshot older) {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+            int theirs = older.slot(entry.getKey());
+            int mine = entry.getValue();
+            if (theirs == MISSING
+                    || !Objects.equals(strings[mine], older.strings[theirs])
+                    || !Objects.equals(errors[mine], older.errors[theirs])) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String key : older.slots.keySet()) {
+            if (!slots.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+
+    /** The slot for a full key (prefix.key), or MISSING. */
+    int slot(String key) {
+        Integer slot = slots.get(key);
+        return slot == null ? MISSING : slot;
+    }
+
+    int size() {
+        return strings.length;
+    }
+
+    boolean hasString(int slot) {
+        return slot != MISSING && strings[slot] != null;
+    }
+
+    boolean hasNumber(int slot) {
+        return slot != MISSING && (parsed[slot] & NUMBER_OK) != 0;
+    }
+
+    boolean hasInt(int slot) {
+        return slot != MISSING && (parsed[slot] & INT_OK) != 0;
+    }
+
+    String getString(int slot) {
+        return strings[slot];
+    }
+
+    double getNumber(int slot) {
+        return numbers[slot];
+    }
+
+    int getInt(int slot) {
+        return ints[slot];
+    }
+
+    boolean getBoolean(int slot) {
+        return booleans[slot];
+    }
+
+    /** Why the value in a slot had no usable string (e.g. no type cast), or null. */
+    String getError(int slot) {
+        return slot == MISSING ? null : errors[slot];
+    }
+}
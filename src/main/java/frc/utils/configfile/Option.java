@@ -6,6 +6,7 @@ import edu.wpi.first.networktables.DoublePublisher;
 import edu.wpi.first.networktables.DoubleSubscriber;
 import edu.wpi.first.networktables.StringPublisher;
 import edu.wpi.first.networktables.StringSubscriber;
+import frc.utils.Console;
 
 import java.util.Objects;
 
@@ -24,6 +25,8 @@ public class Option<T> {
     private boolean dirty;
     private Object publisher;
     private Object subscriber;
+    // A dashboard slider being dragged changes the value every loop
+    private final Console.Site updateLog = new Console.Site(0.5);
 
     public Option(String label, T defaultValue, String tableName) {
         this.label = label;
@@ -62,7 +65,7 @@ public class Option<T> {
             value = newValue;
             dirty = true;
             updatePublisher();
-            console("updated to " + value);
+            updateLog.println(prefix() + "updated to " + value);
         }
     }
 
@@ -146,8 +149,8 @@ public class Option<T> {
         return value.toString();
     }
 
-    private void console(String message) {
-        System.out.println("Option [" + tableName + "/" + label + "]: " + message);
+    private String prefix() {
+        return "Option [" + tableName + "/" + label + "]: ";
     }
 
     /**
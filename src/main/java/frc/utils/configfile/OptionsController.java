@@ -3,6 +3,7 @@ package frc.utils.configfile;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Base class for managing a collection of options that can be modified through
@@ -20,6 +21,15 @@ public class OptionsController extends DashboardTuner {
         this.tableName = tableName;
     }
 
+    /**
+     * Options that start from the properties under propertyPrefix (option "x" from propertyPrefix.x), and
+     * follow edits to those properties when StormProp reloads the files.
+     */
+    public OptionsController(String tableName, String propertyPrefix) {
+        this(tableName);
+        StormProp.addReloadListener(changed -> reload(propertyPrefix, changed));
+    }
+
     protected Option<Boolean> createBooleanOption(String label, boolean defaultValue) {
         Option<Boolean> option = new Option<>(label, defaultValue, tableName);
         options.add(option);
@@ -81,6 +91,26 @@ public class OptionsController extends DashboardTuner {
         initialized = true;
     }
 
+    // A reloaded value is published like a dashboard edit, so periodic() sees it as the new value
+    @SuppressWarnings("unchecked")
+    private void reload(String propertyPrefix, Set<String> changed) {
+        for (Option<?> option : options) {
+            if (!changed.contains(propertyPrefix + "." + option.getLabel())) {
+                continue;
+            }
+            Object value = option.get();
+            if (value instanceof Boolean boolVal) {
+                ((Option<Boolean>) option).setValue(StormProp.getBoolean(propertyPrefix, option.getLabel(), boolVal));
+            } else if (value instanceof Double doubleVal) {
+                ((Option<Double>) option).setValue(StormProp.getNumber(propertyPrefix, option.getLabel(), doubleVal));
+            } else if (value instanceof Integer intVal) {
+                ((Option<Integer>) option).setValue(StormProp.getInt(propertyPrefix, option.getLabel(), intVal));
+            } else if (value instanceof String strVal) {
+                ((Option<String>) option).setValue(StormProp.getString(propertyPrefix, option.getLabel(), strVal));
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public void periodic() {
         if (!initialized) {
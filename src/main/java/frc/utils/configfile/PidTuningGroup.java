@@ -1,5 +1,7 @@
 package frc.utils.configfile;
 
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.BooleanSubscriber;
 import edu.wpi.first.networktables.DoublePublisher;
 import edu.wpi.first.networktables.DoubleSubscriber;
 import frc.robot.subsystems.drive.config.PidConfig;
@@ -7,6 +9,9 @@ import frc.robot.subsystems.drive.config.PidConfig;
 /**
  * Groups related NetworkTable entries for PID tuning. Each group manages the P,
  * I, D, Max, and V values for a PID configuration.
+ * <p>
+ * Changed values mark the config dirty so the motors pick them up (without saving them to flash);
+ * the persist toggle asks the motors to save their current values.
  */
 public final class PidTuningGroup {
 
@@ -24,6 +29,9 @@ public final class PidTuningGroup {
     private final DoubleSubscriber kMaxSub;
     private final DoubleSubscriber kVSub;
 
+    private final BooleanPublisher persistPub;
+    private final BooleanSubscriber persistSub;
+
     private final PidConfig config;
 
     public PidTuningGroup(DashboardTuner tuner, String prefix, PidConfig config) {
@@ -35,6 +43,7 @@ public final class PidTuningGroup {
         var kMinTopic = tuner.getTable().getDoubleTopic(prefix + "/kMin");
         var kMaxTopic = tuner.getTable().getDoubleTopic(prefix + "/kMax");
         var kVTopic = tuner.getTable().getDoubleTopic(prefix + "/kV");
+        var persistTopic = tuner.getTable().getBooleanTopic(prefix + "/persist");
 
         kpPub = kpTopic.publish();
         kiPub = kiTopic.publish();
@@ -42,6 +51,7 @@ public final class PidTuningGroup {
         kMinPub = kMinTopic.publish();
         kMaxPub = kMaxTopic.publish();
         kVPub = kVTopic.publish();
+        persistPub = persistTopic.publish();
 
         kpSub = kpTopic.subscribe(config.kP);
         kiSub = kiTopic.subscribe(config.kI);
@@ -49,9 +59,11 @@ public final class PidTuningGroup {
         kMinSub = kMinTopic.subscribe(config.kMin);
         kMaxSub = kMaxTopic.subscribe(config.kMax);
         kVSub = kVTopic.subscribe(config.kV);
+        persistSub = persistTopic.subscribe(false);
 
         // Set initial values
         doPublishConfig(config);
+        persistPub.set(false);
     }
 
     public void periodic() {
@@ -72,10 +84,27 @@ public final class PidTuningGroup {
     }
 
     public void updateConfig(PidConfig config) {
-        config.withKP(kpSub.get())
-                .withKI(kiSub.get())
-                .withKD(kdSub.get())
-                .withKMinMax(kMinSub.get(), kMaxSub.get())
-                .withKV(kVSub.get());
+        double kP = kpSub.get();
+        double kI = kiSub.get();
+        double kD = kdSub.get();
+        double kMin = kMinSub.get();
+        double kMax = kMaxSub.get();
+        double kV = kVSub.get();
+
+        if (kP != config.kP || kI != config.kI || kD != config.kD
+                || kMin != config.kMin || kMax != config.kMax || kV != config.kV) {
+            config.withKP(kP)
+                    .withKI(kI)
+                    .withKD(kD)
+                    .withKMinMax(kMin, kMax)
+                    .withKV(kV)
+                    .setDirty();
+        }
+
+        // Acts as a button: save once, then pop back up
+        if (persistSub.get()) {
+            config.requestPersist();
+            persistPub.set(false);
+        }
     }
 }
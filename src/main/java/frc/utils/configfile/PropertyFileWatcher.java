@@ -0,0 +1,103 @@
+package frc.utils.configfile;
+
+import frc.utils.Console;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Watches a directory on a background thread and reports when any of a set of files in it change.
+ * Editors often save a file as several events (truncate, write, rename), so events are collected for
+ * {@link #SETTLE_MS} after the first one and reported together, once.
+ * <p>
+ * The callback runs on the watcher thread; it can read files, but must hand anything for the robot
+ * loop over safely.
+ */
+final class PropertyFileWatcher {
+
+    static final long SETTLE_MS = 100;
+
+    private final Path directory;
+    private final Set<String> fileNames;
+    private final Consumer<Set<String>> onChange;
+
+    /**
+     * @param fileNames names of the files to watch, in directory
+     * @param onChange called with the names of the files that changed
+     */
+    PropertyFileWatcher(Path directory, Set<String> fileNames, Consumer<Set<String>> onChange) {
+        this.directory = directory;
+        this.fileNames = Set.copyOf(fileNames);
+        this.onChange = onChange;
+    }
+
+    void start() {
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            console("can't watch " + directory + ": " + e.getMessage());
+            return;
+        }
+
+        Thread thread = new Thread(() -> run(watchService), "PropertyFileWatcher");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        console("watching " + fileNames + " in " + directory);
+    }
+
+    private void run(WatchService watchService) {
+        try {
+            while (true) {
+                Set<String> changed = new HashSet<>();
+                WatchKey key = watchService.take();
+                collect(key, changed);
+
+                // Let the save finish before reading the file
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(more, changed);
+                }
+
+                if (!changed.isEmpty()) {
+                    try {
+                        onChange.accept(changed);
+                    } catch (RuntimeException e) {
+                        console("reload failed: " + e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            console("stopped");
+        }
+    }
+
+    private void collect(WatchKey key, Set<String> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path path) {
+                String name = path.getFileName().toString();
+                if (fileNames.contains(name)) {
+                    changed.add(name);
+                }
+            }
+        }
+        key.reset();
+    }
+
+    private void console(String message) {
+        Console.println("PropertyFileWatcher: " + message);
+    }
+}
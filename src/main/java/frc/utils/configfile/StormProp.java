@@ -2,15 +2,36 @@ package frc.utils.configfile;
 
 import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.RobotBase;
+import frc.utils.Console;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
-import java.util.function.Function;
-
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Config values from the deploy property files. The config, override and sim files are each read once
+ * and merged into a {@link ConfigSnapshot} with every value already parsed; lookups read from that.
+ * <p>
+ * The String based getters find the key's {@link Key} every call, which is fine for Constants at class
+ * init. Code that looks a value up repeatedly should get the Key once with {@link #key(String, String)}
+ * and use the Key getters, which are an array read. A missing or unparseable key warns once and then
+ * quietly returns the default.
+ * <p>
+ * In simulation, with hotReloadProperties set, the files are watched: an edit is parsed on a background
+ * thread into a new snapshot, which replaces the old one in one swap. {@link #periodic()} then tells the
+ * {@link ReloadListener}s which keys changed, on the robot thread. Constants keep the values they
+ * started with; only code that looks values up again, or listens, sees the edit.
+ */
 public class StormProp {
 
     private static final String PATH = Filesystem.getDeployDirectory().getPath();
@@ -22,56 +43,67 @@ public class StormProp {
     private static final String RC_NAME = ".stormrc";
     private static final File RC_FILE = new File(RC_PATH, RC_NAME);
 
-    private static final HashMap<String, Double> NUMBER_MAP = new HashMap<>();
-    private static final HashMap<String, Integer> INTEGER_MAP = new HashMap<>();
-    private static final HashMap<String, Boolean> BOOLEAN_MAP = new HashMap<>();
-    private static final HashMap<String, String> STRING_MAP = new HashMap<>();
+    private static final Map<String, Key> KEYS = new ConcurrentHashMap<>();
+    private static final AtomicReference<ConfigSnapshot> SNAPSHOT = new AtomicReference<>();
+    // Keys changed by reloads the robot thread hasn't been told about yet
+    private static final AtomicReference<Set<String>> PENDING_CHANGES = new AtomicReference<>();
+    private static final List<ReloadListener> LISTENERS = new CopyOnWriteArrayList<>();
+    private static int snapshotVersion = 0;
     private static Properties properties;
     private static Properties overrideProperties;
     private static Properties simProperties;
-    private static boolean initialized = false;
+    private static File overrideFile;
+    private static File simFile;
+    private static boolean watching = false;
     private static boolean overrideInitialized = false;
     private static boolean simInitialized = false;
     private static boolean debug = false;
 
-    public static void init() {
-        System.out.println("Running in directory " + System.getProperty("user.dir"));
-        System.out.println("Trying to use file " + CONFIG_FILE.getAbsolutePath());
+    public static synchronized void init() {
+        Console.println("Running in directory " + System.getProperty("user.dir"));
+        Console.println("Trying to use file " + CONFIG_FILE.getAbsolutePath());
         properties = new Properties();
         FileInputStream inputStream = null;
         try {
             inputStream = new FileInputStream(CONFIG_FILE);
             properties.load(inputStream);
-            System.out.println("*****************");
-            System.out.println("Loading Properties");
-            System.out.println("*****************");
+            Console.println("*****************");
+            Console.println("Loading Properties");
+            Console.println("*****************");
         } catch (FileNotFoundException e) {
-            System.out.println("Using backup config file");
+            Console.println("Using backup config file");
             try {
                 inputStream = new FileInputStream(new File("/home/lvuser/deploy", BACKUP_NAME));
                 properties.load(inputStream);
             } catch (FileNotFoundException fnf) {
-                System.out.println("Failed to find backup file: " + fnf.getMessage());
+                Console.println("Failed to find backup file: " + fnf.getMessage());
             } catch (IOException ioe) {
-                System.out.println("Error reading backup file: " + ioe.getMessage());
+                Console.println("Error reading backup file: " + ioe.getMessage());
             }
         } catch (IOException e) {
-            System.out.println("Error reading config file: " + e.getMessage());
+            Console.println("Error reading config file: " + e.getMessage());
         } finally {
             if (inputStream != null) {
                 try {
                     inputStream.close();
                 } catch (IOException e) {
-                    System.out.println("Error closing config file: " + e.getMessage());
+                    Console.println("Error closing config file: " + e.getMessage());
                 }
             }
         }
-        initialized = true;
         if (!overrideInitialized) {
             overrideInit();
         }
+        if (!simInitialized) {
+            simInit();
+        }
 
+        rebuildSnapshot();
         debug = getBoolean("debugProperties", false);
+
+        if (RobotBase.isSimulation() && getBoolean("hotReloadProperties", false)) {
+            startWatching();
+        }
     }
 
     public static void overrideInit() {
@@ -82,32 +114,33 @@ public class StormProp {
         overrideName = removeCast(overrideName);
 
         if (overrideName.equalsIgnoreCase("auto")) {
-            System.out.println("Using AUTOMATIC configuration");
+            Console.println("Using AUTOMATIC configuration");
             Properties rcProperties = new Properties();
             FileInputStream rcStream = null;
             try {
-                System.out.println("rcFile path: " + RC_FILE.getAbsolutePath());
+                Console.println("rcFile path: " + RC_FILE.getAbsolutePath());
                 rcStream = new FileInputStream(RC_FILE);
                 rcProperties.load(rcStream);
-                System.out.println("autoConfig setting " + rcProperties.getProperty("autoConfig"));
+                Console.println("autoConfig setting " + rcProperties.getProperty("autoConfig"));
                 overrideName = properties.getProperty(rcProperties.getProperty("autoConfig"));
             } catch (FileNotFoundException e) {
-                System.out.println("Failed to find autoConfig file: " + e.getMessage());
+                Console.println("Failed to find autoConfig file: " + e.getMessage());
             } catch (IOException e) {
-                System.out.println("Error reading autoConfig file: " + e.getMessage());
+                Console.println("Error reading autoConfig file: " + e.getMessage());
             } finally {
                 if (rcStream != null) {
                     try {
                         rcStream.close();
                     } catch (IOException e) {
-                        System.out.println("Error closing autoConfig file: " + e.getMessage());
+                        Console.println("Error closing autoConfig file: " + e.getMessage());
                     }
                 }
             }
         }
 
-        System.out.println("Using override file " + overrideName);
+        Console.println("Using override file " + overrideName);
         File overrideConfigFile = new File(PATH, overrideName);
+        overrideFile = overrideConfigFile;
         overrideProperties = new Properties();
 
         FileInputStream overrideInputStream = null;
@@ -115,20 +148,23 @@ public class StormProp {
             overrideInputStream = new FileInputStream(overrideConfigFile);
             overrideProperties.load(overrideInputStream);
         } catch (FileNotFoundException e) {
-            System.out.println("!!! No override file detected !!!");
+            Console.println("!!! No override file detected !!!");
         } catch (IOException e) {
-            System.out.println("Error reading override file: " + e.getMessage());
+            Console.println("Error reading override file: " + e.getMessage());
         } finally {
             if (overrideInputStream != null) {
                 try {
                     overrideInputStream.close();
                 } catch (IOException e) {
-                    System.out.println("Error closing override file: " + e.getMessage());
+                    Console.println("Error closing override file: " + e.getMessage());
                 }
             }
         }
 
         overrideInitialized = true;
+        if (SNAPSHOT.get() != null) {
+            rebuildSnapshot();
+        }
     }
 
     public static void simInit() {
@@ -143,31 +179,182 @@ public class StormProp {
         String simName = properties.getProperty("simOverrideOverride");
         simName = removeCast(simName);
 
-        System.out.println("Using simulation override file " + simName);
+        Console.println("Using simulation override file " + simName);
         File simConfigFile = new File(PATH, simName);
+        simFile = simConfigFile;
 
         FileInputStream simInputStream = null;
         try {
             simInputStream = new FileInputStream(simConfigFile);
             simProperties.load(simInputStream);
         } catch (FileNotFoundException e) {
-            System.out.println("!!! No simulation override file detected !!!");
+            Console.println("!!! No simulation override file detected !!!");
         } catch (IOException e) {
-            System.out.println("Error reading simulation file: " + e.getMessage());
+            Console.println("Error reading simulation file: " + e.getMessage());
         } finally {
             if (simInputStream != null) {
                 try {
                     simInputStream.close();
                 } catch (IOException e) {
-                    System.out.println("Error closing simulation file: " + e.getMessage());
+                    Console.println("Error closing simulation file: " + e.getMessage());
                 }
             }
         }
 
         simInitialized = true;
+        if (SNAPSHOT.get() != null) {
+            rebuildSnapshot();
+        }
+    }
+
+    /**
+     * Merge and parse the files into a new snapshot and swap it in. Keys notice the new version and look
+     * their slot up again on next use.
+     *
+     * @return the keys whose values changed
+     */
+    private static synchronized Set<String> rebuildSnapshot() {
+        ConfigSnapshot previous = SNAPSHOT.get();
+        ConfigSnapshot next = ConfigSnapshot.build(++snapshotVersion, properties, overrideProperties, simProperties);
+        SNAPSHOT.set(next);
+        Console.println("Loaded " + next.size() + " properties");
+        return previous == null ? Set.of() : next.changedSince(previous);
     }
 
-    private static String removeCast(String value) {
+    /** Told which properties changed after the files are reloaded. */
+    @FunctionalInterface
+    public interface ReloadListener {
+        /**
+         * Called on the robot thread, from {@link StormProp#periodic()}.
+         *
+         * @param changedKeys full keys (prefix.key) whose values changed, were added or were removed
+         */
+        void propertiesReloaded(Set<String> changedKeys);
+    }
+
+    public static void addReloadListener(ReloadListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Deliver reloads to the listeners. Call once a loop from the robot thread; when nothing was reloaded
+     * this is one atomic read.
+     */
+    public static void periodic() {
+        if (PENDING_CHANGES.get() == null) {
+            return;
+        }
+        Set<String> changed = PENDING_CHANGES.getAndSet(null);
+        if (changed == null || changed.isEmpty()) {
+            return;
+        }
+        Console.println("Reloaded properties: " + changed);
+        for (ReloadListener listener : LISTENERS) {
+            listener.propertiesReloaded(changed);
+        }
+    }
+
+    private static synchronized void startWatching() {
+        if (watching) {
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        names.add(CONFIG_NAME);
+        if (overrideFile != null) {
+            names.add(overrideFile.getName());
+        }
+        if (simFile != null) {
+            names.add(simFile.getName());
+        }
+        new PropertyFileWatcher(new File(PATH).toPath(), names, StormProp::reload).start();
+        watching = true;
+    }
+
+    // Watcher thread: re-read only the files that changed, then publish the new snapshot
+    private static void reload(Set<String> fileNames) {
+        long start = System.nanoTime();
+        Set<String> changed;
+        synchronized (StormProp.class) {
+            if (fileNames.contains(CONFIG_NAME)) {
+                properties = loadOrKeep(CONFIG_FILE, properties);
+            }
+            if (overrideFile != null && fileNames.contains(overrideFile.getName())) {
+                overrideProperties = loadOrKeep(overrideFile, overrideProperties);
+            }
+            if (simFile != null && fileNames.contains(simFile.getName())) {
+                simProperties = loadOrKeep(simFile, simProperties);
+            }
+            changed = rebuildSnapshot();
+        }
+        Console.println(String.format("Reloaded %s in %.1f ms, %d properties changed",
+                fileNames, (System.nanoTime() - start) / 1e6, changed.size()));
+        if (!changed.isEmpty()) {
+            PENDING_CHANGES.accumulateAndGet(changed, (pending, more) -> {
+                if (pending == null) {
+                    return more;
+                }
+                Set<String> merged = new HashSet<>(pending);
+                merged.addAll(more);
+                return merged;
+            });
+        }
+    }
+
+    // A file caught halfway through a save may not parse; keep what we had rather than lose every value
+    private static Properties loadOrKeep(File file, Properties current) {
+        Properties loaded = new Properties();
+        try (FileInputStream stream = new FileInputStream(file)) {
+            loaded.load(stream);
+            return loaded;
+        } catch (IOException | IllegalArgumentException e) {
+            Console.println("Error reloading " + file.getName() + ", keeping the old values: " + e.getMessage());
+            return current;
+        }
+    }
+
+    /**
+     * Check Constants baked in at build time (ConstantGenerator's literal mode) against the deployed
+     * files. javac has already copied the literals into the code that uses them, so a mismatch can't
+     * be patched here: each one is reported, and the caller must not run on them (Robot stops a real
+     * robot at startup). Anything that reads values through StormProp still gets the deployed ones.
+     *
+     * @param source the files the values were baked from, for the report
+     * @param keys full keys (prefix.key) that were baked
+     * @param types each key's property type tag (string, int, number, boolean)
+     * @param values each key's baked value, normalized by type; null where the default was baked
+     * @return true if every baked value matches
+     */
+    public static boolean verifyBaked(String source, String[] keys, String[] types, String[] values) {
+        ConfigSnapshot current = ensureInitialized();
+        int mismatches = 0;
+        for (int i = 0; i < keys.length; i++) {
+            String deployed = deployedValue(current, current.slot(keys[i]), types[i]);
+            if (!Objects.equals(deployed, values[i])) {
+                Console.println("WARNING: baked constant " + keys[i] + " = " + values[i]
+                        + " but the deployed value is " + deployed);
+                mismatches++;
+            }
+        }
+        if (mismatches > 0) {
+            Console.println("WARNING: " + mismatches + " of " + keys.length + " constants baked from "
+                    + source + " don't match the deployed properties, rebuild to pick them up");
+            return false;
+        }
+        Console.println("Constants baked from " + source + " match the deployed properties");
+        return true;
+    }
+
+    // A value normalized the way ConstantGenerator bakes it, or null if the default would be used
+    private static String deployedValue(ConfigSnapshot current, int slot, String type) {
+        return switch (type) {
+            case "number" -> current.hasNumber(slot) ? Double.toString(current.getNumber(slot)) : null;
+            case "int" -> current.hasInt(slot) ? Integer.toString(current.getInt(slot)) : null;
+            case "boolean" -> current.hasString(slot) ? Boolean.toString(current.getBoolean(slot)) : null;
+            default -> current.hasString(slot) ? current.getString(slot) : null;
+        };
+    }
+
+    static String removeCast(String value) {
         if (value == null) {
             throw new IllegalArgumentException("Property value cannot be null");
         }
@@ -178,92 +365,139 @@ public class StormProp {
         return value.substring(endIndex + 1).trim();
     }
 
-    private static String getPropString(String key) {
-        ensureInitialized();
-
-        if (simProperties != null && simProperties.containsKey(key)) {
-            return removeCast(simProperties.getProperty(key));
+    private static ConfigSnapshot ensureInitialized() {
+        ConfigSnapshot current = SNAPSHOT.get();
+        if (current == null) {
+            init();
+            current = SNAPSHOT.get();
         }
-        if (overrideProperties != null && overrideProperties.containsKey(key)) {
-            return removeCast(overrideProperties.getProperty(key));
+        return current;
+    }
+
+    /**
+     * A config key, resolved to its slot in the snapshot the first time it is used. Get one with
+     * {@link StormProp#key(String, String)}; there is one Key per name.
+     */
+    public static final class Key {
+        private final String name;
+        // Snapshot version in the high 32 bits, slot in the low, so both change together
+        private volatile long resolved = -1;
+        private int reportedVersion = 0;
+
+        private Key(String name) {
+            this.name = name;
         }
-        if (properties != null && properties.containsKey(key)) {
-            return removeCast(properties.getProperty(key));
+
+        public String getName() {
+            return name;
         }
-        return "";
-    }
 
-    private static void ensureInitialized() {
-        if (!initialized) {
-            init();
+        private int slot(ConfigSnapshot current) {
+            long r = resolved;
+            if ((int) (r >>> 32) == current.version) {
+                return (int) r;
+            }
+            int slot = current.slot(name);
+            resolved = ((long) current.version << 32) | (slot & 0xFFFFFFFFL);
+            return slot;
         }
-        if (!overrideInitialized) {
-            overrideInit();
+
+        // Warn about a default at most once per snapshot, rather than on every lookup
+        private void reportDefault(ConfigSnapshot current, int slot, String problem) {
+            if (reportedVersion == current.version) {
+                return;
+            }
+            reportedVersion = current.version;
+            String error = current.getError(slot);
+            if (error != null) {
+                Console.println("WARNING: Error parsing property " + name + ": " + error);
+            } else if (problem != null) {
+                Console.println("WARNING: Error parsing " + problem + " property " + name + ": "
+                        + current.getString(slot));
+            }
+            Console.println("WARNING: default used for key " + name);
         }
-        if (!simInitialized) {
-            simInit();
+
+        @Override
+        public String toString() {
+            return name;
         }
     }
 
-    private static <T> T getValueWithCache(String key, String prefix, T defaultVal,
-            HashMap<String, T> cache,
-            Function<String, T> parser) {
+    /** The Key for prefix.key ("general" for no prefix). The same Key every call. */
+    public static Key key(String prefix, String key) {
         String fullKey = prefix.equals("general") ? key : prefix + "." + key;
+        return KEYS.computeIfAbsent(fullKey, Key::new);
+    }
 
-        try {
-            if (cache.containsKey(fullKey)) {
-                return cache.get(fullKey);
-            }
+    public static String getString(Key key, String defaultVal) {
+        ConfigSnapshot current = ensureInitialized();
+        int slot = key.slot(current);
+        if (current.hasString(slot)) {
+            return current.getString(slot);
+        }
+        key.reportDefault(current, slot, null);
+        return defaultVal;
+    }
 
-            String propValue = getPropString(fullKey);
-            if (!propValue.isEmpty()) {
-                try {
-                    T value = parser.apply(propValue);
-                    cache.put(fullKey, value);
-                    return value;
-                } catch (NumberFormatException e) {
-                    System.out.println("WARNING: Error parsing numeric property " + fullKey + ": " + e.getMessage());
-                } catch (IllegalArgumentException e) {
-                    System.out.println("WARNING: Error parsing property " + fullKey + ": " + e.getMessage());
-                }
-            }
-        } catch (SecurityException e) {
-            System.out.println("WARNING: Security error accessing property " + fullKey + ": " + e.getMessage());
+    public static double getNumber(Key key, double defaultVal) {
+        ConfigSnapshot current = ensureInitialized();
+        int slot = key.slot(current);
+        if (current.hasNumber(slot)) {
+            return current.getNumber(slot);
         }
+        key.reportDefault(current, slot, current.hasString(slot) ? "numeric" : null);
+        return defaultVal;
+    }
 
-        System.out.println("WARNING: default used for key " + fullKey);
+    public static int getInt(Key key, int defaultVal) {
+        ConfigSnapshot current = ensureInitialized();
+        int slot = key.slot(current);
+        if (current.hasInt(slot)) {
+            return current.getInt(slot);
+        }
+        key.reportDefault(current, slot, current.hasString(slot) ? "int" : null);
+        return defaultVal;
+    }
+
+    public static boolean getBoolean(Key key, boolean defaultVal) {
+        ConfigSnapshot current = ensureInitialized();
+        int slot = key.slot(current);
+        if (current.hasString(slot)) {
+            return current.getBoolean(slot);
+        }
+        key.reportDefault(current, slot, null);
         return defaultVal;
     }
 
     public static String getString(String prefix, String key, String defaultVal) {
-        String result = getValueWithCache(key, prefix, defaultVal, STRING_MAP, str -> str);
+        String result = getString(key(prefix, key), defaultVal);
         if (debug) {
-            System.out.println("debug property " + prefix + "." + key + " = " + result);
+            Console.println("debug property " + prefix + "." + key + " = " + result);
         }
         return result;
     }
 
     public static double getNumber(String prefix, String key, Double defaultVal) {
-        double result = getValueWithCache(key, prefix, defaultVal, NUMBER_MAP, Double::parseDouble);
+        double result = getNumber(key(prefix, key), defaultVal);
         if (debug) {
-            System.out.println("debug property " + prefix + "." + key + " = " + result);
+            Console.println("debug property " + prefix + "." + key + " = " + result);
         }
         return result;
     }
 
     public static int getInt(String prefix, String key, int defaultVal) {
-        int result = getValueWithCache(key, prefix, defaultVal, INTEGER_MAP, Integer::parseInt);
+        int result = getInt(key(prefix, key), defaultVal);
         if (debug) {
-            System.out.println("debug property " + prefix + "." + key + " = " + result);
+            Console.println("debug property " + prefix + "." + key + " = " + result);
         }
         return result;
     }
 
     public static boolean getBoolean(String prefix, String key, Boolean defaultVal) {
-        boolean result = getValueWithCache(key, prefix, defaultVal, BOOLEAN_MAP,
-                str -> str.equalsIgnoreCase("true"));
+        boolean result = getBoolean(key(prefix, key), defaultVal);
         if (debug) {
-            System.out.println("debug property " + prefix + "." + key + " = " + result);
+            Console.println("debug property " + prefix + "." + key + " = " + result);
         }
         return result;
     }
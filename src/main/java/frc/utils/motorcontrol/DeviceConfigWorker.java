@@ -0,0 +1,63 @@
+package frc.utils.motorcontrol;
+
+import frc.utils.Console;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs device configuration off the main loop, for changes made while the robot is running (e.g. PID
+ * tuning from the dashboard). A configure() call waits for the device and can take tens of ms, which
+ * would overrun the 20 ms loop.
+ * <p>
+ * Work is keyed (e.g. by device and setting): if new work for a key arrives before the previous work
+ * for it has started, only the newest runs, so dragging a slider doesn't queue up a configure per step.
+ * Everything runs on one thread, in order.
+ */
+public final class DeviceConfigWorker {
+
+    private static DeviceConfigWorker instance;
+
+    private final ExecutorService executor;
+    private final Map<String, Runnable> pending = new ConcurrentHashMap<>();
+
+    private DeviceConfigWorker() {
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "DeviceConfigWorker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static DeviceConfigWorker getInstance() {
+        if (instance == null) {
+            instance = new DeviceConfigWorker();
+        }
+        return instance;
+    }
+
+    /**
+     * Queue work for the worker thread, replacing any work for the same key that hasn't started yet.
+     * The work must not share mutable state with the main loop; copy what it needs first.
+     */
+    public void submit(String key, Runnable work) {
+        if (pending.put(key, work) == null) {
+            executor.execute(() -> {
+                Runnable latest = pending.remove(key);
+                if (latest != null) {
+                    try {
+                        latest.run();
+                    } catch (RuntimeException e) {
+                        console(key + " failed: " + e);
+                    }
+                }
+            });
+        }
+    }
+
+    private void console(String message) {
+        Console.println("DeviceConfigWorker: " + message);
+    }
+}
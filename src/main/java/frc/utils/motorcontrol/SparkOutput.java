@@ -0,0 +1,72 @@
+package frc.utils.motorcontrol;
+
+import com.revrobotics.REVLibError;
+import com.revrobotics.spark.SparkBase;
+import com.revrobotics.spark.SparkBase.ControlType;
+import com.revrobotics.spark.SparkClosedLoopController;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.CanBus;
+
+/**
+ * Sends setpoints to a Spark only when they change. Most loops command the same output as the loop
+ * before (a stopped shooter, a module holding its angle), and each of those is a CAN frame that does
+ * nothing. An unchanged setpoint is still resent every canBus.setpointKeepAliveMs, so a Spark that
+ * rebooted or missed a frame gets it back.
+ * <p>
+ * Use one SparkOutput per motor for every output to it; anything that bypasses it (motor.set(),
+ * stopMotor()) needs a {@link #invalidate()} afterward.
+ */
+public class SparkOutput {
+
+    private static long framesSent = 0;
+    private static long framesSkipped = 0;
+
+    private final SparkClosedLoopController controller;
+    private final long keepAliveMicros;
+    private ControlType lastType = null;
+    private double lastValue = 0.0;
+    private long lastSentMicros = 0;
+
+    public SparkOutput(SparkBase motor) {
+        controller = motor.getClosedLoopController();
+        keepAliveMicros = CanBus.setpointKeepAliveMs * 1000L;
+    }
+
+    /** Open loop, -1 to 1, the same as motor.set() */
+    public void set(double output) {
+        setReference(output, ControlType.kDutyCycle);
+    }
+
+    public void setReference(double value, ControlType type) {
+        long now = RobotController.getFPGATime();
+        if (type == lastType && value == lastValue && now - lastSentMicros < keepAliveMicros) {
+            framesSkipped++;
+            return;
+        }
+
+        framesSent++;
+        if (controller.setReference(value, type) == REVLibError.kOk) {
+            lastType = type;
+            lastValue = value;
+            lastSentMicros = now;
+        } else {
+            // Didn't get there, so try again next time
+            invalidate();
+        }
+    }
+
+    /** Send the next setpoint even if it hasn't changed. */
+    public void invalidate() {
+        lastType = null;
+    }
+
+    /** Setpoint frames sent by every SparkOutput */
+    public static long getFramesSent() {
+        return framesSent;
+    }
+
+    /** Setpoint frames not sent because nothing changed, across every SparkOutput */
+    public static long getFramesSkipped() {
+        return framesSkipped;
+    }
+}
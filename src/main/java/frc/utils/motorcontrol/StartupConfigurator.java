@@ -0,0 +1,143 @@
+package frc.utils.motorcontrol;
+
+import com.revrobotics.REVLibError;
+import com.revrobotics.spark.SparkBase;
+import com.revrobotics.spark.config.SparkBaseConfig;
+import frc.robot.Constants.CanBus;
+import frc.utils.Console;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Configures CAN devices in parallel at startup. Each configure call mostly waits for the device to
+ * answer, so running them one after another makes startup (and recovery from a brownout reboot) take
+ * the sum of all of them; here it takes about as long as the slowest one.
+ * <p>
+ * Subsystem constructors {@link #submit} their device setup and carry on; RobotContainer calls
+ * {@link #awaitAll()} once everything is created. A task that returns false is retried up to
+ * canBus.configRetries times. Tasks for different devices may run at the same time, so a task must only
+ * touch its own device, and the subsystem must not use that device until the task is done.
+ */
+public final class StartupConfigurator {
+
+    private record Task(String name, long submitNanos, CompletableFuture<Boolean> future) {
+    }
+
+    private static StartupConfigurator instance;
+
+    private final ExecutorService executor;
+    private final List<Task> pending = new ArrayList<>();
+    // Written on the config threads, logged from awaitAll() on the main thread
+    private final Map<String, Double> latenciesMs = new ConcurrentHashMap<>();
+
+    private StartupConfigurator() {
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(CanBus.configThreads, r -> {
+            Thread thread = new Thread(r, "DeviceConfig-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static StartupConfigurator getInstance() {
+        if (instance == null) {
+            instance = new StartupConfigurator();
+        }
+        return instance;
+    }
+
+    /**
+     * Run a device's setup on the config threads, after any tasks it depends on.
+     *
+     * @param configure returns true on success
+     * @param after     tasks that must finish first (e.g. the CANcoder before seeding a steer encoder)
+     * @return completes with whether the setup finally succeeded
+     */
+    public CompletableFuture<Boolean> submit(String name, BooleanSupplier configure, CompletableFuture<?>... after) {
+        CompletableFuture<Boolean> future = CompletableFuture.allOf(after)
+                .thenApplyAsync(ignored -> run(name, configure), executor);
+        pending.add(new Task(name, System.nanoTime(), future));
+        return future;
+    }
+
+    /** Apply a Spark config, retrying on error. */
+    public CompletableFuture<Boolean> configure(String name, SparkBase motor, SparkBaseConfig config,
+                                               SparkBase.ResetMode resetMode, SparkBase.PersistMode persistMode) {
+        return submit(name, () -> {
+            REVLibError error = motor.configure(config, resetMode, persistMode);
+            if (error != REVLibError.kOk) {
+                console("Error configuring " + name + ": " + error);
+            }
+            return error == REVLibError.kOk;
+        });
+    }
+
+    /**
+     * Wait for everything submitted so far. Each task gets canBus.configTimeoutSec from when it was
+     * submitted; one that takes longer is reported and left running.
+     *
+     * @return true if every task finished and succeeded
+     */
+    public boolean awaitAll() {
+        long start = System.nanoTime();
+        long timeoutNanos = (long) (CanBus.configTimeoutSec * 1e9);
+        boolean allOk = true;
+
+        for (Task task : pending) {
+            long remaining = task.submitNanos() + timeoutNanos - System.nanoTime();
+            try {
+                allOk &= task.future().get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+                Logger.recordOutput("Startup/" + task.name() + " ms", latenciesMs.get(task.name()));
+            } catch (TimeoutException e) {
+                console(task.name() + " did not finish configuring within " + CanBus.configTimeoutSec + " s");
+                allOk = false;
+            } catch (ExecutionException e) {
+                console(task.name() + " failed: " + e.getCause());
+                allOk = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        double waitedMs = (System.nanoTime() - start) / 1e6;
+        console(String.format("%d devices configured%s, waited %.0f ms",
+                pending.size(), allOk ? "" : " WITH ERRORS", waitedMs));
+        Logger.recordOutput("Startup/configWaitMs", waitedMs);
+        Logger.recordOutput("Startup/configOK", allOk);
+        pending.clear();
+        return allOk;
+    }
+
+    private boolean run(String name, BooleanSupplier configure) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        int attempts = 0;
+        while (!ok && attempts <= CanBus.configRetries) {
+            attempts++;
+            ok = configure.getAsBoolean();
+        }
+
+        double latencyMs = (System.nanoTime() - start) / 1e6;
+        latenciesMs.put(name, latencyMs);
+        console(String.format("%s %s in %.0f ms%s", name, ok ? "configured" : "FAILED", latencyMs,
+                attempts > 1 ? " (" + attempts + " attempts)" : ""));
+        return ok;
+    }
+
+    private void console(String message) {
+        Console.println("StartupConfigurator: " + message);
+    }
+}
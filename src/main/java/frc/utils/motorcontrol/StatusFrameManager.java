@@ -0,0 +1,194 @@
+package frc.utils.motorcontrol;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.hardware.CANcoder;
+import com.revrobotics.spark.config.SparkBaseConfig;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import frc.robot.Constants.CanBus;
+import frc.utils.Console;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One place that decides how often every CAN device sends its status frames. Each subsystem says which
+ * signals it actually reads (and how often); everything else is slowed to canBus.unusedPeriodMs, and
+ * CANcoders get Phoenix 6 optimizeBusUtilization so unread signals stop entirely. Less traffic means
+ * less latency on the frames we do use.
+ * <p>
+ * The manager also keeps a rough estimate of the resulting bus load and logs it next to the measured
+ * utilization, so a change in what we read shows up as a change in expected load.
+ */
+public final class StatusFrameManager {
+
+    // One control loop, the period for anything read once per loop
+    public static final int LOOP_PERIOD_MS = (int) Math.round(TimedRobot.kDefaultPeriod * 1000.0);
+
+    // An extended CAN 2.0 frame with 8 data bytes is ~128 bits, plus bit stuffing and interframe space
+    private static final double BITS_PER_FRAME = 150.0;
+    private static final double BUS_BITRATE = 1_000_000.0;
+    // getCANStatus() builds a new CANStatus, so measure once a second at 50 Hz rather than every loop
+    private static final int MEASURE_EVERY = 50;
+
+    /**
+     * Status signal periods (ms) for one SparkMax. Start from {@link #unused()} and speed up only the
+     * signals the subsystem reads.
+     */
+    public record SparkSignals(int appliedOutputMs, int outputCurrentMs, int busVoltageMs, int motorTemperatureMs,
+                               int limitsMs, int faultsMs, int primaryEncoderPositionMs, int primaryEncoderVelocityMs) {
+
+        /** Nothing read: everything slow, faults at canBus.faultPeriodMs so they still reach the log. */
+        public static SparkSignals unused() {
+            int slow = CanBus.unusedPeriodMs;
+            return new SparkSignals(slow, slow, slow, slow, slow, CanBus.faultPeriodMs, slow, slow);
+        }
+
+        /**
+         * A follower tracks its leader's applied output frame, so a leader must keep that frame fast
+         * even if the code never reads it.
+         */
+        public SparkSignals asLeader() {
+            return withAppliedOutput(Math.min(appliedOutputMs, 10));
+        }
+
+        public SparkSignals withAppliedOutput(int ms) {
+            return new SparkSignals(ms, outputCurrentMs, busVoltageMs, motorTemperatureMs, limitsMs, faultsMs, primaryEncoderPositionMs, primaryEncoderVelocityMs);
+        }
+
+        public SparkSignals withOutputCurrent(int ms) {
+            return new SparkSignals(appliedOutputMs, ms, busVoltageMs, motorTemperatureMs, limitsMs, faultsMs, primaryEncoderPositionMs, primaryEncoderVelocityMs);
+        }
+
+        public SparkSignals withBusVoltage(int ms) {
+            return new SparkSignals(appliedOutputMs, outputCurrentMs, ms, motorTemperatureMs, limitsMs, faultsMs, primaryEncoderPositionMs, primaryEncoderVelocityMs);
+        }
+
+        public SparkSignals withMotorTemperature(int ms) {
+            return new SparkSignals(appliedOutputMs, outputCurrentMs, busVoltageMs, ms, limitsMs, faultsMs, primaryEncoderPositionMs, primaryEncoderVelocityMs);
+        }
+
+        public SparkSignals withLimits(int ms) {
+            return new SparkSignals(appliedOutputMs, outputCurrentMs, busVoltageMs, motorTemperatureMs, ms, faultsMs, primaryEncoderPositionMs, primaryEncoderVelocityMs);
+        }
+
+        public SparkSignals withPrimaryEncoderPosition(int ms) {
+            return new SparkSignals(appliedOutputMs, outputCurrentMs, busVoltageMs, motorTemperatureMs, limitsMs, faultsMs, ms, primaryEncoderVelocityMs);
+        }
+
+        public SparkSignals withPrimaryEncoderVelocity(int ms) {
+            return new SparkSignals(appliedOutputMs, outputCurrentMs, busVoltageMs, motorTemperatureMs, limitsMs, faultsMs, primaryEncoderPositionMs, ms);
+        }
+
+        // The Spark groups signals into frames, and each frame goes out at its fastest signal's rate:
+        // output / current / voltage / temperature / limits, faults, and primary encoder
+        double framesPerSecond() {
+            int status = Math.min(Math.min(appliedOutputMs, outputCurrentMs),
+                    Math.min(Math.min(busVoltageMs, motorTemperatureMs), limitsMs));
+            int encoder = Math.min(primaryEncoderPositionMs, primaryEncoderVelocityMs);
+            return 1000.0 / status + 1000.0 / faultsMs + 1000.0 / encoder;
+        }
+    }
+
+    private record DeviceLoad(String name, double framesPerSecond) {
+    }
+
+    private static StatusFrameManager instance;
+
+    private final List<DeviceLoad> devices = new ArrayList<>();
+    private double expectedFramesPerSecond = 0;
+    private int loops = 0;
+
+    private StatusFrameManager() {
+    }
+
+    public static StatusFrameManager getInstance() {
+        if (instance == null) {
+            instance = new StatusFrameManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Put the signal periods into a Spark's config. They take effect when the subsystem calls
+     * configure() with that config, so this adds no extra CAN traffic at startup.
+     *
+     * @param name for the load report
+     */
+    public void apply(SparkBaseConfig config, String name, SparkSignals signals) {
+        config.signals
+                .appliedOutputPeriodMs(signals.appliedOutputMs())
+                .outputCurrentPeriodMs(signals.outputCurrentMs())
+                .busVoltagePeriodMs(signals.busVoltageMs())
+                .motorTemperaturePeriodMs(signals.motorTemperatureMs())
+                .limitsPeriodMs(signals.limitsMs())
+                .faultsPeriodMs(signals.faultsMs())
+                .warningsPeriodMs(signals.faultsMs())
+                .primaryEncoderPositionPeriodMs(signals.primaryEncoderPositionMs())
+                .primaryEncoderVelocityPeriodMs(signals.primaryEncoderVelocityMs());
+
+        // Plus the setpoint frame we send it every loop
+        addDevice(name, signals.framesPerSecond() + 1000.0 / LOOP_PERIOD_MS);
+    }
+
+    /**
+     * Set the update rate of the signals a CANcoder's owner reads, then (if canBus.optimizeCANcoders)
+     * turn every other signal off.
+     *
+     * @param name for the load report
+     */
+    public void apply(CANcoder cancoder, String name, double frequencyHz, BaseStatusSignal... used) {
+        StatusCode status = BaseStatusSignal.setUpdateFrequencyForAll(frequencyHz, used);
+        if (!status.isOK()) {
+            console("Failed to set " + name + " signal rates: " + status);
+        }
+
+        if (CanBus.optimizeCANcoders) {
+            status = cancoder.optimizeBusUtilization();
+            if (!status.isOK()) {
+                console("Failed to optimize " + name + " bus utilization: " + status);
+            }
+        }
+
+        addDevice(name, used.length * frequencyHz);
+    }
+
+    private synchronized void addDevice(String name, double framesPerSecond) {
+        devices.add(new DeviceLoad(name, framesPerSecond));
+        expectedFramesPerSecond += framesPerSecond;
+    }
+
+    public synchronized double getExpectedFramesPerSecond() {
+        return expectedFramesPerSecond;
+    }
+
+    /** Expected share of the bus (0 to 1) from the devices registered so far. */
+    public synchronized double getExpectedUtilization() {
+        return expectedFramesPerSecond * BITS_PER_FRAME / BUS_BITRATE;
+    }
+
+    public synchronized void printReport() {
+        console("Expected CAN load:");
+        for (DeviceLoad device : devices) {
+            console(String.format("    %-28s %6.0f frames/s", device.name(), device.framesPerSecond()));
+        }
+        console(String.format("    total %.0f frames/s, about %.0f%% of the bus",
+                expectedFramesPerSecond, 100.0 * getExpectedUtilization()));
+    }
+
+    public void periodic() {
+        Logger.recordOutput("CAN/expectedFramesPerSecond", getExpectedFramesPerSecond());
+        Logger.recordOutput("CAN/expectedUtilization", getExpectedUtilization());
+        if (loops++ % MEASURE_EVERY == 0) {
+            Logger.recordOutput("CAN/measuredUtilization", RobotController.getCANStatus().percentBusUtilization);
+        }
+        Logger.recordOutput("CAN/setpointFramesSent", SparkOutput.getFramesSent());
+        Logger.recordOutput("CAN/setpointFramesSkipped", SparkOutput.getFramesSkipped());
+    }
+
+    private void console(String message) {
+        Console.println("StatusFrameManager: " + message);
+    }
+}
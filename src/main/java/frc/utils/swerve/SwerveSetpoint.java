@@ -7,7 +7,23 @@
 
 package frc.utils.swerve;
 
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 
-public record SwerveSetpoint(ChassisSpeeds chassisSpeeds, SwerveModuleState[] moduleStates) {}
+public record SwerveSetpoint(ChassisSpeeds chassisSpeeds, SwerveModuleState[] moduleStates) {
+  /**
+   * Creates a stopped setpoint with every module pointing forward. Useful as the initial previous
+   * setpoint, or as a caller-owned buffer for the allocation-free setpoint generator.
+   *
+   * @param numModules The number of swerve modules.
+   * @return A new setpoint with its own ChassisSpeeds and module states.
+   */
+  public static SwerveSetpoint zero(int numModules) {
+    SwerveModuleState[] states = new SwerveModuleState[numModules];
+    for (int i = 0; i < numModules; ++i) {
+      states[i] = new SwerveModuleState(0.0, Rotation2d.kZero);
+    }
+    return new SwerveSetpoint(new ChassisSpeeds(), states);
+  }
+}
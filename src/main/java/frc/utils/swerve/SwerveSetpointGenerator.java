@@ -16,7 +16,9 @@ import edu.wpi.first.math.kinematics.SwerveModuleState;
 import lombok.Builder;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.ExtensionMethod;
+import org.littletonrobotics.junction.Logger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import static frc.utils.swerve.EqualsUtil.epsilonEquals;
@@ -37,6 +39,112 @@ public class SwerveSetpointGenerator {
   private final SwerveDriveKinematics kinematics;
   private final Translation2d[] moduleLocations;
 
+  // Reusable root-finding targets and scratch space, so that the allocation-free variant of
+  // generateSetpoint() does not create any objects once it is warmed up.
+  private final SteeringFunction steeringFunction = new SteeringFunction();
+  private final DriveFunction driveFunction = new DriveFunction();
+  private final Workspace workspace = new Workspace();
+  private final ChassisSpeeds zeroSpeeds = new ChassisSpeeds();
+  private final SolverConfig solverConfig = new SolverConfig();
+
+  private final RootFinderStats rootStats = new RootFinderStats();
+  // Built on the first call to recordRootFinderOutputs(), so logging every loop makes no strings
+  private RootFinderKeys rootKeys;
+
+  /** Runtime choices for how the limits are solved. Kept out of the builder on purpose. */
+  private static final class SolverConfig {
+    boolean analyticDriveSolver = true;
+    boolean illinois = true;
+    double rootTolerance = 1e-9;
+  }
+
+  /** The output keys for RootFinderStats under one prefix. */
+  private static final class RootFinderKeys {
+    final String prefix;
+    final String calls;
+    final String iterations;
+    final String maxIterationsPerCall;
+    final String lastCallIterations;
+    final String unconverged;
+
+    RootFinderKeys(String prefix) {
+      this.prefix = prefix;
+      calls = prefix + "/Calls";
+      iterations = prefix + "/IterationsPerLoop";
+      maxIterationsPerCall = prefix + "/MaxIterationsPerCall";
+      lastCallIterations = prefix + "/LastCallIterations";
+      unconverged = prefix + "/Unconverged";
+    }
+  }
+
+  /** How hard the root finder worked during the most recent call to generateSetpoint(). */
+  private static final class RootFinderStats {
+    int calls;
+    int iterations;
+    int maxIterationsPerCall;
+    int lastCallIterations;
+    int unconverged;
+
+    void reset() {
+      calls = 0;
+      iterations = 0;
+      maxIterationsPerCall = 0;
+      unconverged = 0;
+    }
+
+    void record(int callIterations, boolean converged) {
+      calls++;
+      iterations += callIterations;
+      maxIterationsPerCall = Math.max(maxIterationsPerCall, callIterations);
+      lastCallIterations = callIterations;
+      if (!converged) {
+        unconverged++;
+      }
+    }
+  }
+
+  /**
+   * Choose how the drive acceleration limit is solved.
+   *
+   * @param analytic True (the default) to solve the quadratic for 's' exactly in constant time, or
+   *     false to fall back to the iterative regula falsi search.
+   */
+  public void setUseAnalyticDriveSolver(boolean analytic) {
+    solverConfig.analyticDriveSolver = analytic;
+  }
+
+  /**
+   * Configure the iterative root finder used for the steering limit (and the drive limit when the
+   * analytic solver is off).
+   *
+   * @param tolerance Stop as soon as the limit function is within this of zero (radians for
+   *     steering, meters per second for drive).
+   * @param illinois True (the default) to use the Illinois modification of regula falsi.
+   */
+  public void setRootFinder(double tolerance, boolean illinois) {
+    solverConfig.rootTolerance = tolerance;
+    solverConfig.illinois = illinois;
+  }
+
+  /**
+   * Log how much root finding the most recent setpoint needed, so max_iterations can be sized from
+   * data. Call once per loop, after generateSetpoint().
+   *
+   * @param key The AdvantageKit output key to log under.
+   */
+  public void recordRootFinderOutputs(String key) {
+    RootFinderKeys keys = rootKeys;
+    if (keys == null || !keys.prefix.equals(key)) {
+      keys = new RootFinderKeys(key);
+      rootKeys = keys;
+    }
+    Logger.recordOutput(keys.calls, rootStats.calls);
+    Logger.recordOutput(keys.iterations, rootStats.iterations);
+    Logger.recordOutput(keys.maxIterationsPerCall, rootStats.maxIterationsPerCall);
+    Logger.recordOutput(keys.lastCallIterations, rootStats.lastCallIterations);
+    Logger.recordOutput(keys.unconverged, rootStats.unconverged);
+  }
+
   /**
    * Check if it would be faster to go to the opposite of the goal heading (and reverse drive
    * direction).
@@ -66,21 +174,109 @@ public class SwerveSetpointGenerator {
     double f(double x, double y);
   }
 
+  /** Signed distance of a module heading from the steering limit, reused between calls. */
+  private final class SteeringFunction implements Function2d {
+    private double ref;
+    private double offset;
+
+    @Override
+    public double f(double x, double y) {
+      return unwrapAngle(ref, Math.atan2(y, x)) - offset;
+    }
+  }
+
+  /** Signed distance of a module speed from the drive velocity limit, reused between calls. */
+  private static final class DriveFunction implements Function2d {
+    private double offset;
+
+    @Override
+    public double f(double x, double y) {
+      return Math.hypot(x, y) - offset;
+    }
+  }
+
+  /**
+   * Per-module scratch buffers for the allocation-free variant of generateSetpoint(). Sized lazily
+   * on first use, and only reallocated if the number of modules changes.
+   */
+  private static final class Workspace {
+    // Last non-zero heading of each module, mirroring what SwerveDriveKinematics remembers.
+    double[] heading_cos = new double[0];
+    double[] heading_sin = new double[0];
+
+    Rotation2d[] prev_angle = new Rotation2d[0];
+    double[] prev_cos = new double[0];
+    double[] prev_sin = new double[0];
+    double[] prev_speed = new double[0];
+    double[] prev_vx = new double[0];
+    double[] prev_vy = new double[0];
+    double[] prev_heading = new double[0];
+
+    double[] desired_cos = new double[0];
+    double[] desired_sin = new double[0];
+    double[] desired_speed = new double[0];
+    double[] desired_vx = new double[0];
+    double[] desired_vy = new double[0];
+    double[] desired_heading = new double[0];
+
+    boolean[] has_override = new boolean[0];
+    double[] override_cos = new double[0];
+    double[] override_sin = new double[0];
+
+    double[] ret_cos = new double[0];
+    double[] ret_sin = new double[0];
+    double[] ret_speed = new double[0];
+
+    Workspace ensureSize(int n) {
+      if (prev_cos.length == n) {
+        return this;
+      }
+      heading_cos = new double[n];
+      heading_sin = new double[n];
+      Arrays.fill(heading_cos, 1.0);
+      prev_angle = new Rotation2d[n];
+      prev_cos = new double[n];
+      prev_sin = new double[n];
+      prev_speed = new double[n];
+      prev_vx = new double[n];
+      prev_vy = new double[n];
+      prev_heading = new double[n];
+      desired_cos = new double[n];
+      desired_sin = new double[n];
+      desired_speed = new double[n];
+      desired_vx = new double[n];
+      desired_vy = new double[n];
+      desired_heading = new double[n];
+      has_override = new boolean[n];
+      override_cos = new double[n];
+      override_sin = new double[n];
+      ret_cos = new double[n];
+      ret_sin = new double[n];
+      ret_speed = new double[n];
+      return this;
+    }
+  }
+
   /**
    * Find the root of the generic 2D parametric function 'func' using the regula falsi technique.
    * This is a pretty naive way to do root finding, but it's usually faster than simple bisection
    * while being robust in ways that e.g. the Newton-Raphson method isn't.
    *
+   * <p>This is iterative rather than recursive: it tracks the bracket [s_lo, s_hi] directly, and
+   * stops as soon as the function value is within the configured tolerance of zero. With the
+   * Illinois modification enabled, the function value at an endpoint that has been kept twice in a
+   * row is halved, which stops plain regula falsi from stalling with one endpoint stuck at s=1.
+   * If the iteration budget runs out, the lower bracket is returned: it is on the same side of the
+   * root as s=0, so it never violates the limit being solved for.
+   *
    * @param func The Function2d to take the root of.
    * @param x_0 x value of the lower bracket.
    * @param y_0 y value of the lower bracket.
-   * @param f_0 value of 'func' at x_0, y_0 (passed in by caller to save a call to 'func' during
-   *     recursion)
+   * @param f_0 value of 'func' at x_0, y_0.
    * @param x_1 x value of the upper bracket.
    * @param y_1 y value of the upper bracket.
-   * @param f_1 value of 'func' at x_1, y_1 (passed in by caller to save a call to 'func' during
-   *     recursion)
-   * @param iterations_left Number of iterations of root finding left.
+   * @param f_1 value of 'func' at x_1, y_1.
+   * @param max_iterations Maximum number of function evaluations (plus one).
    * @return The parameter value 's' that interpolating between 0 and 1 that corresponds to the
    *     (approximate) root.
    */
@@ -92,24 +288,67 @@ public class SwerveSetpointGenerator {
       double x_1,
       double y_1,
       double f_1,
-      int iterations_left) {
-    if (iterations_left < 0 || epsilonEquals(f_0, f_1)) {
-      return 1.0;
-    }
-    var s_guess = Math.max(0.0, Math.min(1.0, -f_0 / (f_1 - f_0)));
-    var x_guess = (x_1 - x_0) * s_guess + x_0;
-    var y_guess = (y_1 - y_0) * s_guess + y_0;
-    var f_guess = func.f(x_guess, y_guess);
-    if (Math.signum(f_0) == Math.signum(f_guess)) {
-      // 0 and guess on same side of root, so use upper bracket.
-      return s_guess
-          + (1.0 - s_guess)
-              * findRoot(func, x_guess, y_guess, f_guess, x_1, y_1, f_1, iterations_left - 1);
-    } else {
-      // Use lower bracket.
-      return s_guess
-          * findRoot(func, x_0, y_0, f_0, x_guess, y_guess, f_guess, iterations_left - 1);
+      int max_iterations) {
+    double s_lo = 0.0;
+    double s_hi = 1.0;
+    double x_lo = x_0;
+    double y_lo = y_0;
+    double f_lo = f_0;
+    double x_hi = x_1;
+    double y_hi = y_1;
+    double f_hi = f_1;
+    // Which endpoint was replaced last time: -1 for the lower, +1 for the upper, 0 for neither.
+    int last_side = 0;
+
+    int iterations = 0;
+    double s = 1.0;
+    boolean converged = false;
+    while (true) {
+      if (epsilonEquals(f_lo, f_hi)) {
+        s = s_hi;
+        converged = true;
+        break;
+      }
+      if (iterations > max_iterations) {
+        s = s_lo;
+        break;
+      }
+      ++iterations;
+      final double s_guess = Math.max(0.0, Math.min(1.0, -f_lo / (f_hi - f_lo)));
+      final double x_guess = (x_hi - x_lo) * s_guess + x_lo;
+      final double y_guess = (y_hi - y_lo) * s_guess + y_lo;
+      final double f_guess = func.f(x_guess, y_guess);
+      final double s_abs = s_lo + (s_hi - s_lo) * s_guess;
+      if (Math.abs(f_guess) <= solverConfig.rootTolerance) {
+        s = s_abs;
+        converged = true;
+        break;
+      }
+      if (Math.signum(f_lo) == Math.signum(f_guess)) {
+        // Lower bracket and guess on same side of root, so move the lower bracket up.
+        s_lo = s_abs;
+        x_lo = x_guess;
+        y_lo = y_guess;
+        f_lo = f_guess;
+        if (solverConfig.illinois && last_side == -1) {
+          f_hi *= 0.5;
+        }
+        last_side = -1;
+      } else {
+        // Move the upper bracket down.
+        s_hi = s_abs;
+        x_hi = x_guess;
+        y_hi = y_guess;
+        f_hi = f_guess;
+        if (solverConfig.illinois && last_side == 1) {
+          f_lo *= 0.5;
+        }
+        last_side = 1;
+      }
     }
+
+    rootStats.record(iterations, converged);
+    return s;
   }
 
   protected double findSteeringMaxS(
@@ -128,11 +367,10 @@ public class SwerveSetpointGenerator {
       return 1.0;
     }
     double offset = f_0 + Math.signum(diff) * max_deviation;
-    Function2d func =
-        (x, y) -> {
-          return unwrapAngle(f_0, Math.atan2(y, x)) - offset;
-        };
-    return findRoot(func, x_0, y_0, f_0 - offset, x_1, y_1, f_1 - offset, max_iterations);
+    steeringFunction.ref = f_0;
+    steeringFunction.offset = offset;
+    return findRoot(
+        steeringFunction, x_0, y_0, f_0 - offset, x_1, y_1, f_1 - offset, max_iterations);
   }
 
   protected double findDriveMaxS(
@@ -150,34 +388,55 @@ public class SwerveSetpointGenerator {
       return 1.0;
     }
     double offset = f_0 + Math.signum(diff) * max_vel_step;
-    Function2d func =
-        (x, y) -> {
-          return Math.hypot(x, y) - offset;
-        };
-    return findRoot(func, x_0, y_0, f_0 - offset, x_1, y_1, f_1 - offset, max_iterations);
+    if (solverConfig.analyticDriveSolver) {
+      return solveDriveMaxS(x_0, y_0, x_1, y_1, offset);
+    }
+    driveFunction.offset = offset;
+    return findRoot(driveFunction, x_0, y_0, f_0 - offset, x_1, y_1, f_1 - offset, max_iterations);
   }
 
-  // protected double findDriveMaxS(
-  //     double x_0, double y_0, double x_1, double y_1, double max_vel_step) {
-  //   // Our drive velocity between s=0 and s=1 is quadratic in s:
-  //   // v^2 = ((x_1 - x_0) * s + x_0)^2 + ((y_1 - y_0) * s + y_0)^2
-  //   //     = a * s^2 + b * s + c
-  //   // Where:
-  //   //   a = (x_1 - x_0)^2 + (y_1 - y_0)^2
-  //   //   b = 2 * x_0 * (x_1 - x_0) + 2 * y_0 * (y_1 - y_0)
-  //   //   c = x_0^2 + y_0^2
-  //   // We want to find where this quadratic results in a velocity that is > max_vel_step from our
-  //   // velocity at s=0:
-  //   // sqrt(x_0^2 + y_0^2) +/- max_vel_step = ...quadratic...
-  //   final double dx = x_1 - x_0;
-  //   final double dy = y_1 - y_0;
-  //   final double a = dx * dx + dy * dy;
-  //   final double b = 2.0 * x_0 * dx + 2.0 * y_0 * dy;
-  //   final double c = x_0 * x_0 + y_0 * y_0;
-  //   final double v_limit_upper_2 = Math.pow(Math.hypot(x_0, y_0) + max_vel_step, 2.0);
-  //   final double v_limit_lower_2 = Math.pow(Math.hypot(x_0, y_0) - max_vel_step, 2.0);
-  //   return 0.0;
-  // }
+  /**
+   * Closed-form version of the drive velocity limit search. Our drive velocity between s=0 and s=1
+   * is the norm of a linear interpolation, so its square is quadratic in s:
+   *
+   * <pre>
+   * v^2 = ((x_1 - x_0) * s + x_0)^2 + ((y_1 - y_0) * s + y_0)^2
+   *     = a * s^2 + b * s + c
+   * </pre>
+   *
+   * Where a = (x_1 - x_0)^2 + (y_1 - y_0)^2, b = 2 * x_0 * (x_1 - x_0) + 2 * y_0 * (y_1 - y_0) and
+   * c = x_0^2 + y_0^2. We want the s at which v reaches v_limit, i.e. the root of a * s^2 + b * s +
+   * (c - v_limit^2). The caller guarantees that v - v_limit changes sign between s=0 and s=1, so
+   * exactly one root lies in that interval: the positive one when accelerating (c < v_limit^2, so
+   * the roots have opposite signs), and the smaller one when decelerating.
+   *
+   * @param v_limit The drive velocity to solve for.
+   * @return The parameter value 's' in [0, 1] at which the module reaches v_limit.
+   */
+  private static double solveDriveMaxS(
+      double x_0, double y_0, double x_1, double y_1, double v_limit) {
+    final double dx = x_1 - x_0;
+    final double dy = y_1 - y_0;
+    final double a = dx * dx + dy * dy;
+    final double b = 2.0 * x_0 * dx + 2.0 * y_0 * dy;
+    final double c = x_0 * x_0 + y_0 * y_0 - v_limit * v_limit;
+    if (epsilonEquals(a, 0.0)) {
+      // No meaningful change in module velocity, so nothing to limit.
+      return 1.0;
+    }
+    final double discriminant = b * b - 4.0 * a * c;
+    if (discriminant <= 0.0) {
+      // Only possible through rounding when decelerating: the limit is never quite reached, so
+      // get as close to it as possible.
+      return Math.max(0.0, Math.min(1.0, -b / (2.0 * a)));
+    }
+    // Numerically stable form of the quadratic formula (no cancellation between b and the root).
+    final double q = -0.5 * (b + Math.copySign(Math.sqrt(discriminant), b));
+    final double s_0 = q / a;
+    final double s_1 = c / q;
+    final double s = c < 0.0 ? Math.max(s_0, s_1) : Math.min(s_0, s_1);
+    return Math.max(0.0, Math.min(1.0, s));
+  }
 
   /**
    * Generate a new setpoint.
@@ -196,6 +455,7 @@ public class SwerveSetpointGenerator {
       final SwerveSetpoint prevSetpoint,
       ChassisSpeeds desiredState,
       double dt) {
+    rootStats.reset();
     final Translation2d[] modules = moduleLocations;
 
     SwerveModuleState[] desiredModuleState = kinematics.toSwerveModuleStates(desiredState);
@@ -396,4 +656,305 @@ public class SwerveSetpointGenerator {
     }
     return new SwerveSetpoint(retSpeeds, retStates);
   }
+
+  /**
+   * Generate a new setpoint without allocating. This produces the same result as {@link
+   * #generateSetpoint(ModuleLimits, SwerveSetpoint, ChassisSpeeds, double)} (to within floating
+   * point error), but all intermediate values live in primitive scratch buffers owned by this
+   * generator and the result is written into a setpoint owned by the caller. Module angles are only
+   * replaced with new Rotation2d objects when they actually change, so a steady-state call
+   * allocates nothing.
+   *
+   * <p>The generator is not thread safe when used this way. It is fine for prevSetpoint and
+   * outSetpoint to be the same object.
+   *
+   * @param limits The kinematic limits to respect for this setpoint.
+   * @param prevSetpoint The previous setpoint motion.
+   * @param desiredState The desired state of motion. This is never modified.
+   * @param dt The loop time.
+   * @param outSetpoint The setpoint to write the result into. It must hold one non-null module
+   *     state per module.
+   */
+  public void generateSetpoint(
+      final ModuleLimits limits,
+      final SwerveSetpoint prevSetpoint,
+      final ChassisSpeeds desiredState,
+      double dt,
+      final SwerveSetpoint outSetpoint) {
+    rootStats.reset();
+    final int num_modules = moduleLocations.length;
+    final Workspace ws = workspace.ensureSize(num_modules);
+
+    final double prev_chassis_vx = prevSetpoint.chassisSpeeds().vxMetersPerSecond;
+    final double prev_chassis_vy = prevSetpoint.chassisSpeeds().vyMetersPerSecond;
+    final double prev_chassis_omega = prevSetpoint.chassisSpeeds().omegaRadiansPerSecond;
+    for (int i = 0; i < num_modules; ++i) {
+      final SwerveModuleState prevState = prevSetpoint.moduleStates()[i];
+      ws.prev_angle[i] = prevState.angle;
+      ws.prev_cos[i] = prevState.angle.getCos();
+      ws.prev_sin[i] = prevState.angle.getSin();
+      ws.prev_speed[i] = prevState.speedMetersPerSecond;
+    }
+
+    double desired_chassis_vx = desiredState.vxMetersPerSecond;
+    double desired_chassis_vy = desiredState.vyMetersPerSecond;
+    double desired_chassis_omega = desiredState.omegaRadiansPerSecond;
+    toModuleStates(
+        ws,
+        desired_chassis_vx,
+        desired_chassis_vy,
+        desired_chassis_omega,
+        ws.desired_speed,
+        ws.desired_cos,
+        ws.desired_sin);
+    // Make sure desiredState respects velocity limits. Desaturation scales every module by the same
+    // factor, so the chassis speeds scale by it as well.
+    if (limits.maxDriveVelocity() > 0.0) {
+      double real_max_speed = 0.0;
+      for (int i = 0; i < num_modules; ++i) {
+        real_max_speed = Math.max(real_max_speed, Math.abs(ws.desired_speed[i]));
+      }
+      if (real_max_speed > limits.maxDriveVelocity()) {
+        final double scale = limits.maxDriveVelocity() / real_max_speed;
+        for (int i = 0; i < num_modules; ++i) {
+          ws.desired_speed[i] *= scale;
+        }
+        desired_chassis_vx *= scale;
+        desired_chassis_vy *= scale;
+        desired_chassis_omega *= scale;
+      }
+    }
+
+    // Special case: desiredState is a complete stop. In this case, module angle is arbitrary, so
+    // just use the previous angle.
+    boolean need_to_steer = true;
+    if (isStopped(desired_chassis_vx, desired_chassis_vy, desired_chassis_omega)) {
+      need_to_steer = false;
+      for (int i = 0; i < num_modules; ++i) {
+        ws.desired_cos[i] = ws.prev_cos[i];
+        ws.desired_sin[i] = ws.prev_sin[i];
+        ws.desired_speed[i] = 0.0;
+      }
+    }
+
+    // For each module, compute local Vx and Vy vectors. Headings are flipped by Pi when the module
+    // is driving backwards.
+    boolean all_modules_should_flip = true;
+    for (int i = 0; i < num_modules; ++i) {
+      ws.prev_vx[i] = ws.prev_cos[i] * ws.prev_speed[i];
+      ws.prev_vy[i] = ws.prev_sin[i] * ws.prev_speed[i];
+      final double prev_sign = ws.prev_speed[i] < 0.0 ? -1.0 : 1.0;
+      final double prev_heading_cos = prev_sign * ws.prev_cos[i];
+      final double prev_heading_sin = prev_sign * ws.prev_sin[i];
+      ws.prev_heading[i] = Math.atan2(prev_heading_sin, prev_heading_cos);
+
+      ws.desired_vx[i] = ws.desired_cos[i] * ws.desired_speed[i];
+      ws.desired_vy[i] = ws.desired_sin[i] * ws.desired_speed[i];
+      final double desired_sign = ws.desired_speed[i] < 0.0 ? -1.0 : 1.0;
+      final double desired_heading_cos = desired_sign * ws.desired_cos[i];
+      final double desired_heading_sin = desired_sign * ws.desired_sin[i];
+      ws.desired_heading[i] = Math.atan2(desired_heading_sin, desired_heading_cos);
+
+      // The rotation between the headings is less than Pi/2 exactly when its cosine is positive.
+      final double required_rotation_cos =
+          prev_heading_cos * desired_heading_cos + prev_heading_sin * desired_heading_sin;
+      if (all_modules_should_flip && required_rotation_cos > 0.0) {
+        all_modules_should_flip = false;
+      }
+    }
+    if (all_modules_should_flip
+        && !isStopped(prev_chassis_vx, prev_chassis_vy, prev_chassis_omega)
+        && !isStopped(desired_chassis_vx, desired_chassis_vy, desired_chassis_omega)) {
+      // It will (likely) be faster to stop the robot, rotate the modules in place to the complement
+      // of the desired angle, and accelerate again.
+      generateSetpoint(limits, prevSetpoint, zeroSpeeds, dt, outSetpoint);
+      return;
+    }
+
+    // Compute the deltas between start and goal, exactly as the allocating version does.
+    final double dx = desired_chassis_vx - prev_chassis_vx;
+    final double dy = desired_chassis_vy - prev_chassis_vy;
+    final double dtheta = desired_chassis_omega - prev_chassis_omega;
+
+    double min_s = 1.0;
+
+    // Enforce steering velocity limits, remembering steering overrides for stopped modules.
+    final double max_theta_step = dt * limits.maxSteeringVelocity();
+    for (int i = 0; i < num_modules; ++i) {
+      ws.has_override[i] = false;
+      if (!need_to_steer) {
+        setOverride(ws, i, ws.prev_cos[i], ws.prev_sin[i]);
+        continue;
+      }
+      if (epsilonEquals(ws.prev_speed[i], 0.0)) {
+        if (epsilonEquals(ws.desired_speed[i], 0.0)) {
+          // Goal angle doesn't matter. Just leave module at its current angle.
+          setOverride(ws, i, ws.prev_cos[i], ws.prev_sin[i]);
+          continue;
+        }
+
+        // Rotation from the previous angle to the desired angle, flipped if that is shorter.
+        double rotation_cos =
+            ws.prev_cos[i] * ws.desired_cos[i] + ws.prev_sin[i] * ws.desired_sin[i];
+        double rotation_sin =
+            ws.prev_cos[i] * ws.desired_sin[i] - ws.prev_sin[i] * ws.desired_cos[i];
+        if (rotation_cos < 0.0) {
+          rotation_cos = -rotation_cos;
+          rotation_sin = -rotation_sin;
+        }
+        final double necessary_rotation = Math.atan2(rotation_sin, rotation_cos);
+        final double numStepsNeeded = Math.abs(necessary_rotation) / max_theta_step;
+
+        if (numStepsNeeded <= 1.0) {
+          // Steer directly to goal angle.
+          setOverride(ws, i, ws.desired_cos[i], ws.desired_sin[i]);
+          continue;
+        } else {
+          // Adjust steering by max_theta_step.
+          final double step = Math.signum(necessary_rotation) * max_theta_step;
+          final double step_cos = Math.cos(step);
+          final double step_sin = Math.sin(step);
+          setOverride(
+              ws,
+              i,
+              ws.prev_cos[i] * step_cos - ws.prev_sin[i] * step_sin,
+              ws.prev_cos[i] * step_sin + ws.prev_sin[i] * step_cos);
+          min_s = 0.0;
+          continue;
+        }
+      }
+      if (min_s == 0.0) {
+        // s can't get any lower. Save some CPU.
+        continue;
+      }
+
+      final int kMaxIterations = 8;
+      double s =
+          findSteeringMaxS(
+              ws.prev_vx[i],
+              ws.prev_vy[i],
+              ws.prev_heading[i],
+              ws.desired_vx[i],
+              ws.desired_vy[i],
+              ws.desired_heading[i],
+              max_theta_step,
+              kMaxIterations);
+      min_s = Math.min(min_s, s);
+    }
+
+    // Enforce drive wheel acceleration limits.
+    final double max_vel_step = dt * limits.maxDriveAcceleration();
+    for (int i = 0; i < num_modules; ++i) {
+      if (min_s == 0.0) {
+        // No need to carry on.
+        break;
+      }
+      double vx_min_s =
+          min_s == 1.0
+              ? ws.desired_vx[i]
+              : (ws.desired_vx[i] - ws.prev_vx[i]) * min_s + ws.prev_vx[i];
+      double vy_min_s =
+          min_s == 1.0
+              ? ws.desired_vy[i]
+              : (ws.desired_vy[i] - ws.prev_vy[i]) * min_s + ws.prev_vy[i];
+      final int kMaxIterations = 10;
+      double s =
+          min_s
+              * findDriveMaxS(
+                  ws.prev_vx[i],
+                  ws.prev_vy[i],
+                  Math.hypot(ws.prev_vx[i], ws.prev_vy[i]),
+                  vx_min_s,
+                  vy_min_s,
+                  Math.hypot(vx_min_s, vy_min_s),
+                  max_vel_step,
+                  kMaxIterations);
+      min_s = Math.min(min_s, s);
+    }
+
+    final double ret_vx = prev_chassis_vx + min_s * dx;
+    final double ret_vy = prev_chassis_vy + min_s * dy;
+    final double ret_omega = prev_chassis_omega + min_s * dtheta;
+    toModuleStates(ws, ret_vx, ret_vy, ret_omega, ws.ret_speed, ws.ret_cos, ws.ret_sin);
+
+    final ChassisSpeeds retSpeeds = outSetpoint.chassisSpeeds();
+    retSpeeds.vxMetersPerSecond = ret_vx;
+    retSpeeds.vyMetersPerSecond = ret_vy;
+    retSpeeds.omegaRadiansPerSecond = ret_omega;
+    for (int i = 0; i < num_modules; ++i) {
+      double cos = ws.ret_cos[i];
+      double sin = ws.ret_sin[i];
+      double speed = ws.ret_speed[i];
+      if (ws.has_override[i]) {
+        if (cos * ws.override_cos[i] + sin * ws.override_sin[i] < 0.0) {
+          speed *= -1.0;
+        }
+        cos = ws.override_cos[i];
+        sin = ws.override_sin[i];
+      }
+      if (ws.prev_cos[i] * cos + ws.prev_sin[i] * sin < 0.0) {
+        cos = -cos;
+        sin = -sin;
+        speed *= -1.0;
+      }
+      final SwerveModuleState retState = outSetpoint.moduleStates()[i];
+      retState.speedMetersPerSecond = speed;
+      retState.angle = reuseOrCreateAngle(ws.prev_angle[i], retState.angle, cos, sin);
+    }
+  }
+
+  private static boolean isStopped(double vx, double vy, double omega) {
+    return epsilonEquals(vx, 0.0) && epsilonEquals(vy, 0.0) && epsilonEquals(omega, 0.0);
+  }
+
+  private static void setOverride(Workspace ws, int i, double cos, double sin) {
+    ws.has_override[i] = true;
+    ws.override_cos[i] = cos;
+    ws.override_sin[i] = sin;
+  }
+
+  /**
+   * Inverse kinematics into primitive buffers. This follows SwerveDriveKinematics exactly: a
+   * stopped chassis (or a stopped module) keeps the last heading that module was given.
+   */
+  private void toModuleStates(
+      Workspace ws,
+      double vx,
+      double vy,
+      double omega,
+      double[] speeds,
+      double[] cosines,
+      double[] sines) {
+    final boolean stopped = vx == 0.0 && vy == 0.0 && omega == 0.0;
+    for (int i = 0; i < moduleLocations.length; ++i) {
+      if (!stopped) {
+        final double x = vx - omega * moduleLocations[i].getY();
+        final double y = vy + omega * moduleLocations[i].getX();
+        final double speed = Math.hypot(x, y);
+        speeds[i] = speed;
+        if (speed > 1e-6) {
+          ws.heading_cos[i] = x / speed;
+          ws.heading_sin[i] = y / speed;
+        }
+      } else {
+        speeds[i] = 0.0;
+      }
+      cosines[i] = ws.heading_cos[i];
+      sines[i] = ws.heading_sin[i];
+    }
+  }
+
+  /** Returns one of the existing angles if it matches cos/sin, and only allocates otherwise. */
+  private static Rotation2d reuseOrCreateAngle(
+      Rotation2d prev, Rotation2d current, double cos, double sin) {
+    if (epsilonEquals(prev.getCos(), cos) && epsilonEquals(prev.getSin(), sin)) {
+      return prev;
+    }
+    if (current != null
+        && epsilonEquals(current.getCos(), cos)
+        && epsilonEquals(current.getSin(), sin)) {
+      return current;
+    }
+    return new Rotation2d(cos, sin);
+  }
 }
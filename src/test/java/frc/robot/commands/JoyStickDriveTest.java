@@ -0,0 +1,48 @@
+package frc.robot.commands;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.subsystems.drive.DrivetrainBase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static frc.utils.AllocationMeter.assertAllocationFree;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JoyStickDrive's input shaping (squaring, rate limiting) and hand off to the drivetrain, every loop
+ * while driving.
+ */
+class JoyStickDriveTest {
+
+    // Sticks moving around, so the rate limiters and field relative rotation are doing real work
+    private double x = 0;
+    private double y = 0;
+    private double omega = 0;
+    private int loop = 0;
+
+    @BeforeAll
+    static void initializeHal() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @Test
+    void executeAllocatesNothing() {
+        DrivetrainBase drivetrain = new DrivetrainBase() {
+            @Override
+            protected double getFieldRelativeYawRadians() {
+                return loop * 0.01;
+            }
+        };
+        JoyStickDrive command = new JoyStickDrive(drivetrain, () -> x, () -> y, () -> omega);
+        command.initialize();
+
+        assertAllocationFree(() -> {
+            loop++;
+            x = Math.sin(loop * 0.05);
+            y = Math.cos(loop * 0.03);
+            omega = -Math.sin(loop * 0.07);
+            // execute() itself prints every 500 loops, so call the command's own work directly
+            command.stormExecute();
+        });
+    }
+}
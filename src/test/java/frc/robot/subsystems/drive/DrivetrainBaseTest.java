@@ -0,0 +1,88 @@
+package frc.robot.subsystems.drive;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static frc.utils.AllocationMeter.assertAllocationFree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DrivetrainBaseTest {
+    private static final double EPSILON = 1e-9;
+
+    // A drive whose heading the test sets
+    private static class TestDrivetrain extends DrivetrainBase {
+        double yawRadians = 0;
+
+        @Override
+        protected double getFieldRelativeYawRadians() {
+            return yawRadians;
+        }
+    }
+
+    private TestDrivetrain drivetrain;
+
+    @BeforeAll
+    static void initializeHal() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @BeforeEach
+    void setup() {
+        drivetrain = new TestDrivetrain();
+        drivetrain.setMaxVelocities(4.5, 9.0);
+    }
+
+    @Test
+    void fieldRelativeDriveMatchesChassisSpeeds() {
+        ChassisSpeeds command = new ChassisSpeeds(1.0, -2.0, 0.5);
+        drivetrain.yawRadians = 0.7;
+        drivetrain.drive(command, true, 0.25);
+
+        ChassisSpeeds expected = ChassisSpeeds.fromFieldRelativeSpeeds(command, new Rotation2d(0.7));
+        assertEquals(0.25 * expected.vxMetersPerSecond, drivetrain.m_chassisSpeeds.vxMetersPerSecond, EPSILON);
+        assertEquals(0.25 * expected.vyMetersPerSecond, drivetrain.m_chassisSpeeds.vyMetersPerSecond, EPSILON);
+        assertEquals(0.25 * expected.omegaRadiansPerSecond, drivetrain.m_chassisSpeeds.omegaRadiansPerSecond, EPSILON);
+        // The caller's speeds are left alone
+        assertEquals(1.0, command.vxMetersPerSecond);
+    }
+
+    @Test
+    void scaleChassisSpeedsAllocatesNothing() {
+        ChassisSpeeds speeds = new ChassisSpeeds(1.0, 1.0, 1.0);
+        assertAllocationFree(() -> {
+            drivetrain.scaleChassisSpeeds(speeds, 0.5);
+            speeds.vxMetersPerSecond = 1.0;
+            speeds.vyMetersPerSecond = 1.0;
+            speeds.omegaRadiansPerSecond = 1.0;
+        });
+    }
+
+    @Test
+    void fieldRelativeDriveAllocatesNothing() {
+        ChassisSpeeds command = new ChassisSpeeds(1.0, -2.0, 0.5);
+        assertAllocationFree(() -> {
+            drivetrain.yawRadians += 0.01;
+            drivetrain.drive(command, true);
+        });
+    }
+
+    @Test
+    void robotRelativeDriveAllocatesNothing() {
+        ChassisSpeeds command = new ChassisSpeeds(1.0, -2.0, 0.5);
+        assertAllocationFree(() -> drivetrain.drive(command, false));
+    }
+
+    @Test
+    void percentOutputDriveAllocatesNothing() {
+        ChassisSpeeds command = new ChassisSpeeds(0.5, 0.25, -0.75);
+        assertAllocationFree(() -> {
+            drivetrain.yawRadians += 0.01;
+            drivetrain.percentOutputDrive(command, true);
+        });
+    }
+}
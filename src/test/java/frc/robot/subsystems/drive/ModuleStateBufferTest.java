@@ -0,0 +1,60 @@
+package frc.robot.subsystems.drive;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.subsystems.drive.config.ModuleLocations;
+import org.junit.jupiter.api.Test;
+
+import static frc.utils.AllocationMeter.ROTATION_BYTES;
+import static frc.utils.AllocationMeter.assertAllocatesAtMost;
+import static frc.utils.AllocationMeter.assertAllocationFree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * BasicSwerve's drive math: chassis speeds to module states, every loop.
+ */
+class ModuleStateBufferTest {
+    private static final double EPSILON = 1e-9;
+    private final Translation2d[] moduleLocations = ModuleLocations.saturnX();
+    private final ChassisSpeeds[] commands = {
+        new ChassisSpeeds(2.0, 0.0, 0.0),
+        new ChassisSpeeds(-1.0, 1.5, 1.0),
+        new ChassisSpeeds(),
+        new ChassisSpeeds(0.0, 0.0, 3.0),
+        new ChassisSpeeds(0.5, -2.0, -1.5)
+    };
+    private int loop = 0;
+
+    @Test
+    void matchesSwerveDriveKinematics() {
+        SwerveDriveKinematics kinematics = new SwerveDriveKinematics(moduleLocations);
+        ModuleStateBuffer buffer = new ModuleStateBuffer(moduleLocations);
+
+        // In order, so a stop has to keep the angles of the command before it
+        for (ChassisSpeeds command : commands) {
+            SwerveModuleState[] expected = kinematics.toSwerveModuleStates(command);
+            SwerveModuleState[] actual = buffer.toSwerveModuleStates(command);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i].speedMetersPerSecond, actual[i].speedMetersPerSecond, EPSILON);
+                assertEquals(expected[i].angle.getCos(), actual[i].angle.getCos(), EPSILON);
+                assertEquals(expected[i].angle.getSin(), actual[i].angle.getSin(), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    void holdingACommandAllocatesNothing() {
+        ModuleStateBuffer buffer = new ModuleStateBuffer(moduleLocations);
+        ChassisSpeeds command = new ChassisSpeeds(1.5, 0.5, 0.7);
+        assertAllocationFree(() -> buffer.toSwerveModuleStates(command));
+    }
+
+    @Test
+    void changingCommandsAllocatesAtMostOneAnglePerModule() {
+        ModuleStateBuffer buffer = new ModuleStateBuffer(moduleLocations);
+        assertAllocatesAtMost(moduleLocations.length * ROTATION_BYTES,
+                () -> buffer.toSwerveModuleStates(commands[loop++ % commands.length]));
+    }
+}
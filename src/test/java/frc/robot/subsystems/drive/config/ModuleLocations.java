@@ -0,0 +1,23 @@
+package frc.robot.subsystems.drive.config;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * The robot's module locations, for tests and benchmarks of the drive math. Taken from the module
+ * configs, so they follow the drive constants, in the order SwerveModuleGroup hands them to the
+ * kinematics: front left, front right, back right, back left.
+ */
+public final class ModuleLocations {
+
+    private ModuleLocations() {
+    }
+
+    public static Translation2d[] saturnX() {
+        ModuleConfig[] configs = SaturnXModuleConstants.getOrderedModuleConfigs();
+        Translation2d[] locations = new Translation2d[configs.length];
+        for (int i = 0; i < configs.length; i++) {
+            locations[i] = configs[i].offset;
+        }
+        return locations;
+    }
+}
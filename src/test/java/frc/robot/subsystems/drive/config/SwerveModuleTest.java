@@ -0,0 +1,74 @@
+package frc.robot.subsystems.drive.config;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.Drive;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static frc.utils.AllocationMeter.assertAllocationFree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SwerveModule's conversion of a module state into drive and steer targets. Off robot the module runs on
+ * ModuleIOSim.
+ */
+class SwerveModuleTest {
+    private static final double EPSILON = 1e-9;
+
+    private final SwerveModuleState[] states = {
+        new SwerveModuleState(2.0, Rotation2d.fromDegrees(30)),
+        new SwerveModuleState(2.0, Rotation2d.fromDegrees(135)),
+        new SwerveModuleState(-1.0, Rotation2d.fromDegrees(-100)),
+        new SwerveModuleState(0.5, Rotation2d.fromDegrees(-45)),
+        new SwerveModuleState(3.0, Rotation2d.fromDegrees(90))
+    };
+    private SwerveModule module;
+    private int loop = 0;
+
+    @BeforeAll
+    static void initializeHal() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @BeforeEach
+    void setup() {
+        module = new SwerveModule(SaturnXModuleConstants.FRONT_LEFT, SaturnXModuleConstants.flModuleConfig,
+                new PidConfig(), new PidConfig());
+    }
+
+    @Test
+    void matchesSwerveModuleStateOptimization() {
+        for (SwerveModuleState state : states) {
+            SwerveModuleState expected = new SwerveModuleState(state.speedMetersPerSecond, state.angle);
+            Rotation2d current = Rotation2d.fromDegrees(module.getSteerAngle());
+            if (Drive.angleOptimize) {
+                expected.optimize(current);
+            }
+            if (Drive.cosineOptimize) {
+                expected.cosineScale(current);
+            }
+
+            module.setSwerveModuleState(state);
+
+            assertEquals(expected.speedMetersPerSecond, module.getTargetDriveVelocity(), EPSILON);
+            assertEquals(expected.angle.getDegrees(), module.getTargetSteerAngle(), EPSILON);
+        }
+    }
+
+    @Test
+    void stateIsNotModified() {
+        SwerveModuleState state = new SwerveModuleState(2.0, Rotation2d.fromDegrees(135));
+        module.setSwerveModuleState(state);
+        assertEquals(2.0, state.speedMetersPerSecond);
+        assertEquals(135.0, state.angle.getDegrees(), EPSILON);
+    }
+
+    @Test
+    void setSwerveModuleStateAllocatesNothing() {
+        assertAllocationFree(() -> module.setSwerveModuleState(states[loop++ % states.length]));
+    }
+}
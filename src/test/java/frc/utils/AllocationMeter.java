@@ -0,0 +1,72 @@
+package frc.utils;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures the bytes the current thread allocates while running some code, for tests that keep
+ * garbage out of the robot loop.
+ * <p>
+ * The code is run {@link #WARMUP} times first, so what is measured is the compiled code the robot runs
+ * after its first few seconds, not the interpreter. The result is the average over {@link #ITERATIONS}
+ * runs, so a cache filled on first use doesn't count against every call.
+ */
+public final class AllocationMeter {
+
+    public static final int WARMUP = 20_000;
+    public static final int ITERATIONS = 10_000;
+    // A Rotation2d is 40 bytes on a 64 bit JVM with compressed pointers; rounded up for other layouts
+    public static final double ROTATION_BYTES = 64;
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationMeter() {
+    }
+
+    public static boolean isSupported() {
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return false;
+        }
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return true;
+    }
+
+    /**
+     * @return average bytes allocated by one run of body, once warmed up
+     */
+    public static double bytesPerCall(Runnable body) {
+        for (int i = 0; i < WARMUP; i++) {
+            body.run();
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            body.run();
+        }
+        long after = threads.getCurrentThreadAllocatedBytes();
+        return (double) (after - before) / ITERATIONS;
+    }
+
+    /**
+     * Fail unless a warmed up run of body allocates at most budgetBytes on average. Skipped on a JVM
+     * that can't measure allocation.
+     */
+    public static void assertAllocatesAtMost(double budgetBytes, Runnable body) {
+        assumeTrue(isSupported(), "this JVM can't measure thread allocation");
+        double bytes = bytesPerCall(body);
+        assertTrue(bytes <= budgetBytes,
+                String.format("allocated %.1f bytes per call, budget is %.1f", bytes, budgetBytes));
+    }
+
+    /**
+     * Fail if a warmed up run of body allocates. Up to a byte per call on average is allowed, which is
+     * nothing per call but leaves room for something allocated once in the whole run.
+     */
+    public static void assertAllocationFree(Runnable body) {
+        assertAllocatesAtMost(1.0, body);
+    }
+}
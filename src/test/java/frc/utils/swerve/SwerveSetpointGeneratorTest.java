@@ -0,0 +1,67 @@
+package frc.utils.swerve;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import frc.robot.subsystems.drive.config.ModuleLocations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static frc.utils.AllocationMeter.ROTATION_BYTES;
+import static frc.utils.AllocationMeter.assertAllocatesAtMost;
+import static frc.utils.AllocationMeter.assertAllocationFree;
+
+/** The reusing generateSetpoint must not bring garbage back into the drive loop. */
+class SwerveSetpointGeneratorTest {
+  private static final double LOOP_PERIOD = 0.02;
+  private final Translation2d[] moduleLocations = ModuleLocations.saturnX();
+  private final ModuleLimits limits = new ModuleLimits(4.5, 8.0, 12.0);
+
+  private SwerveSetpointGenerator generator;
+  private SwerveSetpoint setpoint;
+  private int loop;
+
+  @BeforeEach
+  void setup() {
+    generator =
+        SwerveSetpointGenerator.builder()
+            .kinematics(new SwerveDriveKinematics(moduleLocations))
+            .moduleLocations(moduleLocations)
+            .build();
+    setpoint = SwerveSetpoint.zero(moduleLocations.length);
+    loop = 0;
+  }
+
+  @Test
+  void holdingACommandAllocatesNothing() {
+    ChassisSpeeds command = new ChassisSpeeds(1.5, 0.5, 0.7);
+    assertAllocationFree(
+        () -> generator.generateSetpoint(limits, setpoint, command, LOOP_PERIOD, setpoint));
+  }
+
+  @Test
+  void holdingACommandAllocatesNothingWithTheNumericDriveSolver() {
+    generator.setUseAnalyticDriveSolver(false);
+    ChassisSpeeds command = new ChassisSpeeds(1.5, 0.5, 0.7);
+    assertAllocationFree(
+        () -> generator.generateSetpoint(limits, setpoint, command, LOOP_PERIOD, setpoint));
+  }
+
+  @Test
+  void drivingAllocatesAtMostOneAnglePerModule() {
+    // A new command every 25 loops, so the modules are steering most of the time
+    ChassisSpeeds[] commands = {
+      new ChassisSpeeds(2.0, 0.0, 0.0),
+      new ChassisSpeeds(-1.0, 1.5, 1.0),
+      new ChassisSpeeds(0.0, 0.0, 3.0),
+      new ChassisSpeeds(0.5, -2.0, -1.5),
+      new ChassisSpeeds()
+    };
+    assertAllocatesAtMost(
+        moduleLocations.length * ROTATION_BYTES,
+        () -> {
+          loop++;
+          ChassisSpeeds command = commands[(loop / 25) % commands.length];
+          generator.generateSetpoint(limits, setpoint, command, LOOP_PERIOD, setpoint);
+        });
+  }
+}